@@ -0,0 +1,281 @@
+package CA2;
+
+import java.util.HashMap;
+
+/**
+ * Adaptive Replacement Cache (Megiddo and Modha, 2003). Cached entries live in two LRU lists:
+ * T1 for keys seen once recently and T2 for keys seen at least twice. Two ghost lists, B1 and
+ * B2, remember what was recently evicted from T1 and T2. A miss that hits a ghost in B1 means
+ * T1 was too small, so the target size p for T1 grows; a ghost hit in B2 shrinks it. That way
+ * the cache shifts between favouring recency and frequency as the traffic changes.
+ * The ghost lists only keep the key's hash, not the key or value, so they stay cheap; two keys
+ * with the same hash share a ghost, which at worst nudges p the wrong way once.
+ */
+public class ArcCache implements StringCache {
+    class Node {
+        String key;
+        String value;
+        boolean inT2;
+        Node prev, next;
+        Node(String k, String v) { key = k; value = v; }
+    }
+
+
+    // Ghost entry, just a key hash in an LRU list
+    static class Ghost {
+        int hash;
+        boolean inB2;
+        Ghost prev, next;
+        Ghost(int h) { hash = h; }
+    }
+
+
+    // Cache properties
+    private final HashMap<String, Node> map;
+    private final HashMap<Integer, Ghost> ghosts;
+    private final int capacity;
+    private int p;   // target size of T1
+    private int t1Size, t2Size, b1Size, b2Size;
+    private final Node t1Head, t1Tail, t2Head, t2Tail;
+    private final Ghost b1Head, b1Tail, b2Head, b2Tail;
+
+
+
+    // Constructor
+    public ArcCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        this.map = new HashMap<>();
+        this.ghosts = new HashMap<>();
+        t1Head = new Node(null, null);
+        t1Tail = new Node(null, null);
+        t1Head.next = t1Tail;
+        t1Tail.prev = t1Head;
+        t2Head = new Node(null, null);
+        t2Tail = new Node(null, null);
+        t2Head.next = t2Tail;
+        t2Tail.prev = t2Head;
+        b1Head = new Ghost(0);
+        b1Tail = new Ghost(0);
+        b1Head.next = b1Tail;
+        b1Tail.prev = b1Head;
+        b2Head = new Ghost(0);
+        b2Tail = new Ghost(0);
+        b2Head.next = b2Tail;
+        b2Tail.prev = b2Head;
+    }
+
+
+
+    // Add a node to the front of the given list
+    private void addToFront(Node head, Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from whichever list it is in
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // Add a ghost to the front of the given ghost list
+    private void addGhost(Ghost head, Ghost g) {
+        g.next = head.next;
+        g.prev = head;
+        head.next.prev = g;
+        head.next = g;
+    }
+
+
+
+    // Remove a ghost from its list and the ghost index, nothing to do if it is already gone
+    private void removeGhost(Ghost g) {
+        if (g.prev == null) return;
+        g.prev.next = g.next;
+        g.next.prev = g.prev;
+        g.prev = null;
+        g.next = null;
+        ghosts.remove(g.hash);
+        if (g.inB2) b2Size--;
+        else b1Size--;
+    }
+
+
+
+    // Remember an evicted key's hash at the front of B1 or B2
+    private void rememberGhost(int hash, boolean inB2) {
+        Ghost old = ghosts.get(hash);
+        if (old != null) removeGhost(old);
+        Ghost g = new Ghost(hash);
+        g.inB2 = inB2;
+        addGhost(inB2 ? b2Head : b1Head, g);
+        ghosts.put(hash, g);
+        if (inB2) b2Size++;
+        else b1Size++;
+    }
+
+
+
+    // Get the value of a key if it exists in the cache, a hit moves it to the front of T2
+    public String get(String key) {
+        if (key == null) return null;
+        Node n = map.get(key);
+        if (n == null) return null;
+        promote(n);
+        return n.value;
+    }
+
+
+
+    // Move a cached node to the front of T2 (it has now been seen at least twice)
+    private void promote(Node n) {
+        removeNode(n);
+        if (!n.inT2) {
+            n.inT2 = true;
+            t1Size--;
+            t2Size++;
+        }
+        addToFront(t2Head, n);
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        Node n = map.get(key);
+        if (n != null) {
+            // case I: cached
+            n.value = value;
+            promote(n);
+            return;
+        }
+
+        int hash = key.hashCode();
+        Ghost g = ghosts.get(hash);
+        if (g != null && !g.inB2) {
+            // case II: recently evicted from T1, so T1 should be bigger
+            p = Math.min(capacity, p + Math.max(b2Size / Math.max(1, b1Size), 1));
+            removeGhost(g);
+            replace(false);
+            insert(key, value, true);
+        } else if (g != null) {
+            // case III: recently evicted from T2, so T2 should be bigger
+            p = Math.max(0, p - Math.max(b1Size / Math.max(1, b2Size), 1));
+            removeGhost(g);
+            replace(true);
+            insert(key, value, true);
+        } else {
+            // case IV: never seen (or forgotten)
+            if (t1Size + b1Size == capacity) {
+                if (t1Size < capacity) {
+                    removeGhost(b1Tail.prev);
+                    replace(false);
+                } else {
+                    // B1 is empty and T1 holds everything, drop T1's LRU without a ghost
+                    Node lru = t1Tail.prev;
+                    removeNode(lru);
+                    map.remove(lru.key);
+                    t1Size--;
+                }
+            } else if (t1Size + t2Size + b1Size + b2Size >= capacity) {
+                if (t1Size + t2Size + b1Size + b2Size == 2 * capacity) {
+                    removeGhost(b2Tail.prev);
+                }
+                replace(false);
+            }
+            insert(key, value, false);
+        }
+    }
+
+
+
+    // Link a new node at the front of T1 or T2
+    private void insert(String key, String value, boolean intoT2) {
+        Node node = new Node(key, value);
+        node.inT2 = intoT2;
+        addToFront(intoT2 ? t2Head : t1Head, node);
+        map.put(key, node);
+        if (intoT2) t2Size++;
+        else t1Size++;
+    }
+
+
+
+    // Evict from T1 or T2 depending on the target p, leaving a ghost behind
+    private void replace(boolean hitInB2) {
+        if (t1Size + t2Size < capacity) return;
+        if (t1Size >= 1 && ((hitInB2 && t1Size == p) || t1Size > p)) {
+            Node lru = t1Tail.prev;
+            removeNode(lru);
+            map.remove(lru.key);
+            t1Size--;
+            rememberGhost(lru.key.hashCode(), false);
+        } else if (t2Size >= 1) {
+            Node lru = t2Tail.prev;
+            removeNode(lru);
+            map.remove(lru.key);
+            t2Size--;
+            rememberGhost(lru.key.hashCode(), true);
+        }
+    }
+
+
+
+    // Delete a key from the cache (its ghost, if any, is left alone)
+    public void delete(String key) {
+        Node n = map.remove(key);
+        if (n == null) return;
+        removeNode(n);
+        if (n.inT2) t2Size--;
+        else t1Size--;
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Print T1 and T2 from most to least recently used, plus the ghost list sizes
+    public void printCache() {
+        System.out.print("T1 [MRU] ");
+        for (Node cur = t1Head.next; cur != t1Tail; cur = cur.next) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+        }
+        System.out.print(" [LRU]  T2 [MRU] ");
+        for (Node cur = t2Head.next; cur != t2Tail; cur = cur.next) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+        }
+        System.out.println(" [LRU]  p=" + p + " |B1|=" + b1Size + " |B2|=" + b2Size);
+    }
+
+
+
+    // Demo: frequently used keys move to T2 and survive a scan through T1
+    public static void main(String[] args) {
+        ArcCache cache = new ArcCache(6);
+        for (int i = 1; i <= 3; i++) cache.put("hot" + i, "v" + i);
+        for (int i = 1; i <= 3; i++) cache.get("hot" + i);
+        cache.printCache();
+
+        for (int i = 0; i < 20; i++) cache.put("scan" + i, "s" + i);
+        cache.printCache();
+
+        // a key evicted from T1 comes back: ghost hit in B1 grows p
+        cache.put("scan16", "again");
+        cache.printCache();
+    }
+}
@@ -0,0 +1,254 @@
+package CA2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent LRU cache where reads do not touch the linked list directly. A hit is a
+ * ConcurrentHashMap lookup plus an append to a small per-thread ring buffer; whichever thread
+ * manages to take the drain lock replays the buffered hits against the LRU list in a batch.
+ * Buffers are lossy: if one is full the hit is dropped, which only makes the order slightly
+ * less exact. Writes (put/delete) still take the lock and drain the buffers first.
+ */
+public class BufferedHashMapLRU implements StringCache {
+    class Node {
+        final String key;
+        volatile String value;
+        Node prev, next;   // only touched while holding the lock
+        Node(String k, String v) { key = k; value = v; }
+    }
+
+
+    // Fixed size ring buffer of recent hits, written by readers and drained under the lock
+    private static final class ReadBuffer {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+        final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(SIZE);
+        final AtomicLong writeCount = new AtomicLong();
+        // only advanced under the drain lock, but read by every reader in offer
+        final AtomicLong readCount = new AtomicLong();
+
+        // Try to record a hit, returns the number of pending hits or -1 if it was dropped
+        long offer(Node node) {
+            long w = writeCount.get();
+            long r = readCount.get();
+            if (w - r >= SIZE) return -1;
+            if (!writeCount.compareAndSet(w, w + 1)) return -1;
+            slots.lazySet((int) (w & MASK), node);
+            return w + 1 - r;
+        }
+    }
+
+
+    // Drain once a buffer is this full rather than on every read
+    private static final int DRAIN_THRESHOLD = ReadBuffer.SIZE / 2;
+
+
+    // LRU Cache properties
+    private final ConcurrentHashMap<String, Node> map;
+    private final ReadBuffer[] buffers;
+    private final int bufferMask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int capacity;
+    private final Node head;
+    private final Node tail;
+
+
+
+    // Constructor
+    public BufferedHashMapLRU(int capacity) {
+        this.capacity = capacity;
+        this.map = new ConcurrentHashMap<>();
+        int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+        buffers = new ReadBuffer[n];
+        for (int i = 0; i < n; i++) buffers[i] = new ReadBuffer();
+        bufferMask = n - 1;
+        head = new Node(null, null);
+        tail = new Node(null, null);
+        head.next = tail;
+        tail.prev = head;
+    }
+
+
+
+    // Add a node to the front of the list
+    private void addToFront(Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from the list
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // Move a node to the front (most recently used), skipping nodes already removed
+    private void moveToFront(Node node) {
+        if (node.prev == null) return;
+        removeNode(node);
+        addToFront(node);
+    }
+
+
+
+    // Each thread sticks to one buffer so readers rarely share a counter
+    private ReadBuffer bufferForCurrentThread() {
+        long id = Thread.currentThread().getId();
+        return buffers[(int) (id ^ (id >>> 16)) & bufferMask];
+    }
+
+
+
+    // Replay every buffered hit against the list, must hold the lock
+    private void drainBuffers() {
+        for (ReadBuffer b : buffers) {
+            long end = b.writeCount.get();
+            long r = b.readCount.get();
+            while (r < end) {
+                int i = (int) (r & ReadBuffer.MASK);
+                Node n = b.slots.get(i);
+                // a reader claimed the slot but has not stored the node yet, finish next drain
+                if (n == null) break;
+                b.slots.set(i, null);
+                // release after the clear, so a reader that sees the new count also sees the empty
+                // slot and its node can't be overwritten by the null
+                b.readCount.lazySet(++r);
+                moveToFront(n);
+            }
+        }
+    }
+
+
+
+    // Drain only if no other thread is already doing it
+    private void tryDrain() {
+        if (lock.tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+
+
+    // Get the value of a key if it exists in the cache, without taking the lock on a hit
+    public String get(String key) {
+        if (key == null) return null;
+        Node n = map.get(key);
+        if (n == null) return null;
+        long pending = bufferForCurrentThread().offer(n);
+        if (pending >= DRAIN_THRESHOLD) tryDrain();
+        return n.value;
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        lock.lock();
+        try {
+            drainBuffers();
+            Node n = map.get(key);
+            if (n != null) {
+                n.value = value;
+                moveToFront(n);
+                return;
+            }
+            // New key
+            if (map.size() >= capacity) {
+                // evict LRU
+                Node lru = tail.prev;
+                if (lru != head) {
+                    removeNode(lru);
+                    map.remove(lru.key);
+                }
+            }
+            // Insert new node
+            Node node = new Node(key, value);
+            addToFront(node);
+            map.put(key, node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        if (key == null) return;
+        lock.lock();
+        try {
+            drainBuffers();
+            Node n = map.remove(key);
+            if (n == null) return;
+            removeNode(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Print current cache state from most to least recently used
+    public void printCache() {
+        lock.lock();
+        try {
+            drainBuffers();
+            Node cur = head.next;
+            System.out.print("[MRU] ");
+            while (cur != tail) {
+                System.out.print(cur.key + ":" + cur.value + " ");
+                cur = cur.next;
+            }
+            System.out.println(" [LRU]");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+
+    // Demo: reads from many threads, then show the reordered list
+    public static void main(String[] args) throws InterruptedException {
+        BufferedHashMapLRU cache = new BufferedHashMapLRU(5);
+        for (int i = 1; i <= 5; i++) cache.put(String.valueOf(i), "v" + i);
+        cache.printCache();
+
+        // hammer key 1 from several threads so it ends up most recently used
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) cache.get("1");
+            });
+            readers[t].start();
+        }
+        for (Thread r : readers) r.join();
+        cache.printCache();
+
+        // key 2 is now LRU and is evicted by the next insert
+        cache.put("6", "v6");
+        cache.printCache();
+    }
+}
@@ -0,0 +1,32 @@
+package CA2;
+
+/**
+ * The eviction policies available behind the StringCache interface, so a policy can be
+ * picked by name (for example from a config file or the command line).
+ */
+public enum CachePolicy {
+    LRU,
+    COMPACT_LRU,
+    SAMPLED_LRU,
+    SLRU,
+    ARC,
+    CLOCK,
+    CLOCK_PRO,
+    TINY_LFU;
+
+
+    // Build an empty cache of this policy holding up to capacity entries
+    public StringCache create(int capacity) {
+        switch (this) {
+            case LRU:         return new HashMapLRU(capacity);
+            case COMPACT_LRU: return new CompactHashMapLRU(capacity);
+            case SAMPLED_LRU: return new SampledLRU(capacity);
+            case SLRU:        return new SlruCache(capacity);
+            case ARC:         return new ArcCache(capacity);
+            case CLOCK:       return new ClockCache(capacity);
+            case CLOCK_PRO:   return new ClockProCache(capacity);
+            case TINY_LFU:    return new TinyLfuHashMapLRU(capacity);
+            default:          throw new IllegalStateException("unknown policy " + this);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package CA2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays an access trace through every cache policy at a range of capacities and reports the
+ * hit ratio, throughput and rough memory per entry of each. Every access is a get, and a miss
+ * is followed by a put, like a read-through cache in front of a backend. The trace is streamed
+ * (see TraceReader) in chunks of CHUNK accesses, so a multi-GB trace never has to fit in
+ * memory; only the replay of each chunk is timed, so ops/sec measures the cache calls and not
+ * file I/O or parsing. Each run first warms up the JIT on a short synthetic run of the policy.
+ *
+ * Besides the StringCache policies, the int-keyed LRUCache and IntLRUCache are replayed
+ * (INT_POLICIES). They see a numeric key as its number and any other key as its hash code, so
+ * for text traces two keys with the same hash count as one.
+ *
+ * Usage: java CA2.CacheSimulator trace-file arc|lirs|text capacity[,capacity...] [POLICY,...]
+ * With no arguments a small synthetic skewed trace is generated and replayed.
+ */
+public class CacheSimulator {
+    // One row of the report
+    static final class Result {
+        final String policy;
+        final int capacity;
+        final long accesses, hits;
+        final double opsPerSecond;
+        final double bytesPerEntry;
+
+        Result(String policy, int capacity, long accesses, long hits, double opsPerSecond, double bytesPerEntry) {
+            this.policy = policy;
+            this.capacity = capacity;
+            this.accesses = accesses;
+            this.hits = hits;
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerEntry = bytesPerEntry;
+        }
+
+        double hitRatio() {
+            return accesses == 0 ? 0 : (double) hits / accesses;
+        }
+    }
+
+
+
+    // One cache under test. access returns true on a hit, and a miss puts the key; the
+    // StringCache policies use key, the int-keyed ones id
+    interface Replay {
+        boolean access(String key, int id);
+        int size();
+    }
+
+
+
+    // Totals of one run, fed a chunk of the trace at a time
+    private static final class Run {
+        final Replay cache;
+        long accesses, hits, nanos;
+
+        Run(Replay cache) {
+            this.cache = cache;
+        }
+
+        // Replay the first n accesses of the chunk, timing only the cache calls
+        void replay(String[] keys, int[] ids, int n) {
+            long start = System.nanoTime();
+            long h = 0;
+            for (int i = 0; i < n; i++) {
+                if (cache.access(keys[i], ids[i])) h++;
+            }
+            nanos += System.nanoTime() - start;
+            hits += h;
+            accesses += n;
+        }
+    }
+
+
+
+    // The int-keyed caches, which can't sit behind StringCache
+    static final String[] INT_POLICIES = { "LRU_CACHE", "INT_LRU_CACHE" };
+
+    // Accesses read from the trace before each timed replay
+    static final int CHUNK = 1 << 16;
+
+    // Accesses in the synthetic warm-up run, enough for the JIT to compile the cache calls
+    private static final int WARMUP_ACCESSES = 200_000;
+
+
+
+    // Key id for the int-keyed caches: the number for a numeric key (ARC and LIRS block
+    // numbers), else the hash code
+    static int intId(String key) {
+        long v = 0;
+        int n = key.length();
+        if (n == 0 || n > 18) return key.hashCode();
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') return key.hashCode();
+            v = v * 10 + (c - '0');
+        }
+        return (int) (v ^ (v >>> 32));
+    }
+
+
+
+    // Build an empty cache under test, policy is a CachePolicy name or one of INT_POLICIES
+    static Replay create(String policy, int capacity) {
+        switch (policy) {
+            case "LRU_CACHE": {
+                LRUCache cache = new LRUCache(capacity);
+                return new Replay() {
+                    public boolean access(String key, int id) {
+                        if (cache.get(id) != -1) return true;
+                        cache.put(id, id);
+                        return false;
+                    }
+                    public int size() { return cache.size(); }
+                };
+            }
+            case "INT_LRU_CACHE": {
+                IntLRUCache cache = new IntLRUCache(capacity);
+                return new Replay() {
+                    public boolean access(String key, int id) {
+                        if (cache.get(id) != -1) return true;
+                        cache.put(id, id);
+                        return false;
+                    }
+                    public int size() { return cache.size(); }
+                };
+            }
+            default: {
+                StringCache cache = CachePolicy.valueOf(policy).create(capacity);
+                return new Replay() {
+                    public boolean access(String key, int id) {
+                        if (cache.get(key) != null) return true;
+                        cache.put(key, key);
+                        return false;
+                    }
+                    public int size() { return cache.size(); }
+                };
+            }
+        }
+    }
+
+
+
+    // Replay skewed synthetic keys through a throwaway cache so the timed run starts compiled
+    private static void warmUp(String policy, int capacity) {
+        Random rnd = new Random(7);
+        String[] keys = new String[CHUNK];
+        int[] ids = new int[CHUNK];
+        Run run = new Run(create(policy, capacity));
+        for (int done = 0; done < WARMUP_ACCESSES; done += CHUNK) {
+            for (int i = 0; i < CHUNK; i++) {
+                double u = rnd.nextDouble();
+                keys[i] = Integer.toString((int) (u * u * capacity * 4));
+                ids[i] = intId(keys[i]);
+            }
+            run.replay(keys, ids, CHUNK);
+        }
+    }
+
+
+
+    // Replay a trace file through one policy at one capacity
+    static Result run(Path trace, TraceReader.Format format, CachePolicy policy, int capacity) throws IOException {
+        return run(trace, format, policy.name(), capacity);
+    }
+
+
+
+    // Replay the trace through one policy at one capacity, streaming it a chunk at a time
+    static Result run(Path trace, TraceReader.Format format, String policy, int capacity) throws IOException {
+        warmUp(policy, capacity);
+
+        String[] keys = new String[CHUNK];
+        int[] ids = new int[CHUNK];
+        int[] n = { 0 };
+        Run run = new Run(create(policy, capacity));
+        TraceReader.forEachKey(trace, format, key -> {
+            keys[n[0]] = key;
+            ids[n[0]] = intId(key);
+            if (++n[0] == CHUNK) {
+                run.replay(keys, ids, CHUNK);
+                n[0] = 0;
+            }
+        });
+        run.replay(keys, ids, n[0]);
+
+        return new Result(policy, capacity, run.accesses, run.hits,
+            run.accesses / Math.max(1e-9, run.nanos / 1e9), bytesPerEntry(policy, capacity));
+    }
+
+
+
+    // Bytes allocated to build a cache and fill it to capacity, per entry. Heap readings after a
+    // GC are off by up to a few MB (the serial collector leaves some dead objects in place), so
+    // allocation is counted instead: it is exact, but also includes the tables a cache threw
+    // away while growing. The keys are made up front so only the cache structure counts
+    static double bytesPerEntry(String policy, int capacity) {
+        String[] keys = new String[capacity];
+        int[] ids = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            keys[i] = Integer.toString(i);
+            ids[i] = i;
+        }
+        long before = allocatedBytes();
+        Run run = new Run(create(policy, capacity));
+        run.replay(keys, ids, capacity);
+        long allocated = allocatedBytes() - before;
+        int size = run.cache.size();
+        return size == 0 ? 0 : (double) allocated / size;
+    }
+
+
+
+    // Heap in use after asking for a GC, good enough for a rough per-entry figure
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+
+
+    // Bytes this thread has allocated so far
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+
+
+    // Write a trace of skewed (Zipf-like) accesses with a one-off scan in the middle
+    static Path syntheticTrace(int accesses, int keySpace) throws IOException {
+        Path file = Files.createTempFile("trace", ".txt");
+        Random rnd = new Random(42);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < accesses; i++) {
+                if (i > accesses / 2 && i < accesses / 2 + keySpace) {
+                    w.write("scan" + i);
+                } else {
+                    // cubing a uniform number skews accesses towards small keys
+                    double u = rnd.nextDouble();
+                    w.write("k" + (int) (u * u * u * keySpace));
+                }
+                w.newLine();
+            }
+        }
+        return file;
+    }
+
+
+
+    // Print the report as an aligned table
+    static void printReport(List<Result> results) {
+        System.out.printf("%-13s %9s %12s %9s %14s %12s%n", "policy", "capacity", "accesses", "hit%", "ops/sec", "bytes/entry");
+        for (Result r : results) {
+            System.out.printf("%-13s %9d %12d %8.2f%% %14.0f %12.0f%n", r.policy, r.capacity, r.accesses,
+                100 * r.hitRatio(), r.opsPerSecond, r.bytesPerEntry);
+        }
+    }
+
+
+
+    // Command line entry point
+    public static void main(String[] args) throws IOException {
+        Path trace;
+        TraceReader.Format format;
+        int[] capacities;
+        List<String> policies = new ArrayList<>();
+        for (CachePolicy p : CachePolicy.values()) policies.add(p.name());
+        policies.addAll(Arrays.asList(INT_POLICIES));
+        boolean synthetic = args.length < 3;
+
+        if (synthetic) {
+            trace = syntheticTrace(200_000, 5_000);
+            format = TraceReader.Format.TEXT;
+            capacities = new int[] { 100, 500, 2000 };
+        } else {
+            trace = Path.of(args[0]);
+            format = TraceReader.Format.valueOf(args[1].toUpperCase());
+            String[] caps = args[2].split(",");
+            capacities = new int[caps.length];
+            for (int i = 0; i < caps.length; i++) capacities[i] = Integer.parseInt(caps[i].trim());
+            if (args.length > 3) {
+                List<String> known = policies;
+                policies = new ArrayList<>();
+                for (String name : args[3].split(",")) {
+                    String policy = name.trim().toUpperCase();
+                    if (!known.contains(policy)) throw new IllegalArgumentException("unknown policy " + name + ", expected one of " + known);
+                    policies.add(policy);
+                }
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int capacity : capacities) {
+            for (String policy : policies) {
+                results.add(run(trace, format, policy, capacity));
+            }
+        }
+        if (synthetic) Files.delete(trace);
+        printReport(results);
+    }
+}
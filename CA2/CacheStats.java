@@ -0,0 +1,153 @@
+package CA2;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on cache counters. Each counter is a LongAdder, which spreads updates over striped
+ * cells, so recording from many threads doesn't contend on one shared value. Latency
+ * histograms for get/put are off by default since they cost two System.nanoTime calls per
+ * operation; turn them on with enableLatencyHistograms(). Read everything through snapshot().
+ */
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    // Null until latency histograms are switched on
+    private volatile LatencyHistogram getLatency;
+    private volatile LatencyHistogram putLatency;
+
+
+
+    // Start recording get/put latencies
+    public void enableLatencyHistograms() {
+        if (getLatency == null) {
+            getLatency = new LatencyHistogram();
+            putLatency = new LatencyHistogram();
+        }
+    }
+
+
+
+    // Start time for a timed operation, 0 when latency histograms are off
+    long startTimer() {
+        return getLatency == null ? 0 : System.nanoTime();
+    }
+
+
+
+    // Record a get, hit or miss, and its latency if a timer was started
+    void recordGet(long start, boolean hit) {
+        if (hit) hits.increment();
+        else misses.increment();
+        LatencyHistogram h = getLatency;
+        if (start != 0 && h != null) h.record(System.nanoTime() - start);
+    }
+
+
+
+    // Record a put and its latency if a timer was started
+    void recordPut(long start) {
+        puts.increment();
+        LatencyHistogram h = putLatency;
+        if (start != 0 && h != null) h.record(System.nanoTime() - start);
+    }
+
+
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+
+
+    void recordLoadSuccess(long loadNanos) {
+        loadSuccesses.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+
+
+    void recordLoadFailure(long loadNanos) {
+        loadFailures.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+
+
+    // Current values of every counter, plus the cache's current weight/size
+    public Snapshot snapshot(long currentWeight) {
+        LatencyHistogram g = getLatency;
+        LatencyHistogram p = putLatency;
+        return new Snapshot(hits.sum(), misses.sum(), puts.sum(), evictions.sum(),
+            loadSuccesses.sum(), loadFailures.sum(), totalLoadNanos.sum(), currentWeight,
+            g == null ? null : g.snapshot(), p == null ? null : p.snapshot());
+    }
+
+
+
+    /** Immutable view of the counters at one point in time. */
+    public static final class Snapshot {
+        public final long hits, misses, puts, evictions;
+        public final long loadSuccesses, loadFailures, totalLoadNanos;
+        public final long currentWeight;
+        public final LatencyHistogram.Snapshot getLatency;   // null if histograms are off
+        public final LatencyHistogram.Snapshot putLatency;   // null if histograms are off
+
+        Snapshot(long hits, long misses, long puts, long evictions, long loadSuccesses,
+                 long loadFailures, long totalLoadNanos, long currentWeight,
+                 LatencyHistogram.Snapshot getLatency, LatencyHistogram.Snapshot putLatency) {
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.evictions = evictions;
+            this.loadSuccesses = loadSuccesses;
+            this.loadFailures = loadFailures;
+            this.totalLoadNanos = totalLoadNanos;
+            this.currentWeight = currentWeight;
+            this.getLatency = getLatency;
+            this.putLatency = putLatency;
+        }
+
+        // Fraction of gets that were hits (1.0 when nothing was requested yet)
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        // Mean time spent in the loader per load
+        public double averageLoadNanos() {
+            long loads = loadSuccesses + loadFailures;
+            return loads == 0 ? 0.0 : (double) totalLoadNanos / loads;
+        }
+
+        // Sum of two snapshots, used to add up the segments of a concurrent cache
+        public Snapshot plus(Snapshot o) {
+            return new Snapshot(hits + o.hits, misses + o.misses, puts + o.puts,
+                evictions + o.evictions, loadSuccesses + o.loadSuccesses,
+                loadFailures + o.loadFailures, totalLoadNanos + o.totalLoadNanos,
+                currentWeight + o.currentWeight, plus(getLatency, o.getLatency),
+                plus(putLatency, o.putLatency));
+        }
+
+        private static LatencyHistogram.Snapshot plus(LatencyHistogram.Snapshot a, LatencyHistogram.Snapshot b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            return a.plus(b);
+        }
+
+        @Override
+        public String toString() {
+            String s = String.format("hits=%d misses=%d hitRate=%.3f puts=%d evictions=%d loads=%d/%d avgLoad=%.0fns weight=%d",
+                hits, misses, hitRate(), puts, evictions, loadSuccesses, loadFailures,
+                averageLoadNanos(), currentWeight);
+            if (getLatency != null) s += "\n  get: " + getLatency;
+            if (putLatency != null) s += "\n  put: " + putLatency;
+            return s;
+        }
+    }
+}
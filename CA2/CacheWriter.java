@@ -0,0 +1,34 @@
+package CA2;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The backing store behind a write cache. HashMapLRU calls it on every put and delete in
+ * write-through mode, or in batches from a WriteBehindQueue in write-behind mode. A
+ * WriteBehindQueue may call it from its background thread and an evicting thread at the same
+ * time (never for the same key), so an implementation has to be thread safe.
+ */
+public interface CacheWriter {
+    // Store the value for the key
+    void write(String key, String value);
+
+    // Remove the key from the store
+    void delete(String key);
+
+
+    // Store a batch of values, override when the store has a cheaper bulk write
+    default void writeAll(Map<String, String> entries) {
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            write(e.getKey(), e.getValue());
+        }
+    }
+
+
+    // Remove a batch of keys, override when the store has a cheaper bulk delete
+    default void deleteAll(Collection<String> keys) {
+        for (String key : keys) {
+            delete(key);
+        }
+    }
+}
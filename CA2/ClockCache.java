@@ -0,0 +1,146 @@
+package CA2;
+
+import java.util.HashMap;
+
+/**
+ * CLOCK eviction, an approximation of LRU that never reorders anything on a hit. Entries sit
+ * in fixed slots of a circular array and a hit only sets the slot's reference bit. On insert
+ * into a full cache the clock hand sweeps forward: a slot with its bit set gets a second
+ * chance (bit cleared), the first slot found with its bit clear is the victim.
+ */
+public class ClockCache implements StringCache {
+    // Slot storage
+    private final String[] keys;
+    private final String[] values;
+    private final boolean[] referenced;
+
+    // Slots freed by delete, reused before the hand has to evict anything
+    private final int[] freeSlots;
+    private int freeCount;
+
+    // Cache properties
+    private final HashMap<String, Integer> index;
+    private final int capacity;
+    private int hand;
+    private int size;
+
+
+
+    // Constructor
+    public ClockCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        keys = new String[capacity];
+        values = new String[capacity];
+        referenced = new boolean[capacity];
+        index = new HashMap<>();
+        freeSlots = new int[capacity];
+        // hand out slots 0, 1, 2... first
+        for (int i = 0; i < capacity; i++) freeSlots[i] = capacity - 1 - i;
+        freeCount = capacity;
+    }
+
+
+
+    // Get the value of a key if it exists in the cache, a hit only sets the reference bit
+    public String get(String key) {
+        if (key == null) return null;
+        Integer slot = index.get(key);
+        if (slot == null) return null;
+        referenced[slot] = true;
+        return values[slot];
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        Integer existing = index.get(key);
+        if (existing != null) {
+            values[existing] = value;
+            referenced[existing] = true;
+            return;
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : evict();
+        keys[slot] = key;
+        values[slot] = value;
+        referenced[slot] = false;
+        index.put(key, slot);
+        size++;
+    }
+
+
+
+    // Sweep the hand to the first slot without its reference bit, empty it and return it
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int victim = hand;
+        hand = (hand + 1) % capacity;
+        index.remove(keys[victim]);
+        keys[victim] = null;
+        values[victim] = null;
+        size--;
+        return victim;
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        if (key == null) return;
+        Integer slot = index.remove(key);
+        if (slot == null) return;
+        keys[slot] = null;
+        values[slot] = null;
+        referenced[slot] = false;
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return size;
+    }
+
+
+
+    // Print the slots in clock order starting at the hand, * marks a set reference bit
+    public void printCache() {
+        System.out.print("[hand] ");
+        for (int i = 0; i < capacity; i++) {
+            int s = (hand + i) % capacity;
+            if (keys[s] != null) {
+                System.out.print(keys[s] + ":" + values[s] + (referenced[s] ? "* " : " "));
+            }
+        }
+        System.out.println();
+    }
+
+
+
+    // Demo
+    public static void main(String[] args) {
+        ClockCache cache = new ClockCache(4);
+        cache.put("1", "ryan");
+        cache.put("2", "julia");
+        cache.put("3", "shauna");
+        cache.put("4", "Liam");
+        cache.printCache();
+
+        // hits on 1 and 3 only set their bits
+        cache.get("1");
+        cache.get("3");
+        cache.printCache();
+
+        // the hand skips 1 (second chance) and evicts 2
+        cache.put("5", "Noah");
+        cache.printCache();
+        System.out.println("get 2 -> " + cache.get("2"));
+    }
+}
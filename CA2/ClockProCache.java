@@ -0,0 +1,249 @@
+package CA2;
+
+import java.util.HashMap;
+
+/**
+ * CLOCK-Pro eviction (Jiang, Chen and Zhang, 2005). Like CLOCK a hit only sets a reference bit,
+ * but entries are split into hot and cold, and a cold entry that gets evicted leaves a
+ * non-resident "test" entry (key only) behind for a while. If the key comes back while its test
+ * entry is still there, it has a short reuse distance and is admitted straight as hot, and the
+ * cold target grows. Keys seen only once in a scan stay cold and are the first to go, so scans
+ * don't flush the hot set. Three hands sweep one circular list:
+ *   handCold - finds the cold entry to evict, promoting referenced cold entries to hot
+ *   handHot  - demotes unreferenced hot entries to cold
+ *   handTest - ends the test period of old non-resident entries
+ */
+public class ClockProCache implements StringCache {
+    private static final int HOT = 0, COLD = 1, TEST = 2;
+
+    class Node {
+        String key;
+        String value;
+        int type;
+        boolean referenced;
+        Node prev, next;
+        Node(String k, String v, int t) { key = k; value = v; type = t; }
+    }
+
+
+    // Cache properties
+    private final HashMap<String, Node> map;
+    private final int capacity;
+    private int coldTarget;
+    private int hotCount, coldCount, testCount;
+    private Node handHot, handCold, handTest;
+
+
+
+    // Constructor
+    public ClockProCache(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("capacity must be at least 2");
+        this.capacity = capacity;
+        // start with most of the space for hot entries, the cold target adapts from there
+        this.coldTarget = Math.max(1, capacity / 10);
+        this.map = new HashMap<>();
+    }
+
+
+
+    // Get the value of a key if it is resident, a hit only sets the reference bit
+    public String get(String key) {
+        if (key == null) return null;
+        Node n = map.get(key);
+        if (n == null || n.type == TEST) return null;
+        n.referenced = true;
+        return n.value;
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        Node n = map.get(key);
+        if (n == null) {
+            // first time seen: admitted as cold
+            add(key, value, COLD);
+            coldCount++;
+            return;
+        }
+        if (n.type != TEST) {
+            n.value = value;
+            n.referenced = true;
+            return;
+        }
+        // re-accessed during its test period: give cold entries more room and admit it as hot
+        if (coldTarget < capacity) coldTarget++;
+        testCount--;
+        remove(n);
+        add(key, value, HOT);
+        hotCount++;
+    }
+
+
+
+    // Make room, then link a new node in just behind handHot (the list head)
+    private void add(String key, String value, int type) {
+        while (hotCount + coldCount >= capacity) {
+            runHandCold();
+        }
+        Node n = new Node(key, value, type);
+        map.put(key, n);
+        if (handHot == null) {
+            n.prev = n;
+            n.next = n;
+            handHot = handCold = handTest = n;
+        } else {
+            n.next = handHot;
+            n.prev = handHot.prev;
+            handHot.prev.next = n;
+            handHot.prev = n;
+        }
+        if (handCold == handHot) handCold = handCold.prev;
+    }
+
+
+
+    // Unlink a node, moving any hand that points at it back one step
+    private void remove(Node n) {
+        map.remove(n.key);
+        if (n.next == n) {
+            handHot = handCold = handTest = null;
+        } else {
+            if (n == handHot) handHot = n.prev;
+            if (n == handCold) handCold = n.prev;
+            if (n == handTest) handTest = n.prev;
+            n.prev.next = n.next;
+            n.next.prev = n.prev;
+        }
+        n.prev = null;
+        n.next = null;
+    }
+
+
+
+    // Cold hand: referenced cold entries become hot, the others are evicted into test entries
+    private void runHandCold() {
+        Node n = handCold;
+        if (n.type == COLD) {
+            if (n.referenced) {
+                n.type = HOT;
+                n.referenced = false;
+                coldCount--;
+                hotCount++;
+            } else {
+                n.type = TEST;
+                n.value = null;
+                coldCount--;
+                testCount++;
+                while (testCount > capacity) {
+                    runHandTest();
+                }
+            }
+        }
+        handCold = handCold.next;
+        while (hotCount > capacity - coldTarget) {
+            runHandHot();
+        }
+    }
+
+
+
+    // Hot hand: clears reference bits and demotes hot entries that weren't used since last pass
+    private void runHandHot() {
+        if (handHot == handTest) runHandTest();
+        Node n = handHot;
+        if (n.type == HOT) {
+            if (n.referenced) {
+                n.referenced = false;
+            } else {
+                n.type = COLD;
+                hotCount--;
+                coldCount++;
+            }
+        }
+        handHot = handHot.next;
+    }
+
+
+
+    // Test hand: drops non-resident entries whose test period is over, shrinking the cold target
+    private void runHandTest() {
+        if (handTest == handCold) runHandCold();
+        Node n = handTest;
+        if (n.type == TEST) {
+            remove(n);
+            testCount--;
+            if (coldTarget > 1) coldTarget--;
+        }
+        handTest = handTest.next;
+    }
+
+
+
+    // Delete a key from the cache, resident or not
+    public void delete(String key) {
+        if (key == null) return;
+        Node n = map.get(key);
+        if (n == null) return;
+        if (n.type == HOT) hotCount--;
+        else if (n.type == COLD) coldCount--;
+        else testCount--;
+        remove(n);
+    }
+
+
+
+    // Number of resident entries
+    public int size() {
+        return hotCount + coldCount;
+    }
+
+
+
+    // Print the ring from handHot, H = hot, C = cold, T = non-resident test, * = referenced
+    public void printCache() {
+        System.out.print("[hot hand] ");
+        if (handHot != null) {
+            Node cur = handHot;
+            do {
+                String tag = cur.type == HOT ? "H" : cur.type == COLD ? "C" : "T";
+                System.out.print(cur.key + (cur.type == TEST ? "" : ":" + cur.value) + "(" + tag
+                    + (cur.referenced ? "*" : "") + ") ");
+                cur = cur.next;
+            } while (cur != handHot);
+        }
+        System.out.println(" coldTarget=" + coldTarget);
+    }
+
+
+
+    // Demo: a hot set survives a one-off scan
+    public static void main(String[] args) {
+        ClockProCache pro = new ClockProCache(10);
+        HashMapLRU lru = new HashMapLRU(10);
+
+        // hot working set of 6 keys, read over and over
+        for (int round = 0; round < 10; round++) {
+            for (int i = 1; i <= 6; i++) {
+                String k = "hot" + i;
+                if (pro.get(k) == null) pro.put(k, "v" + i);
+                if (lru.get(k) == null) lru.put(k, "v" + i);
+            }
+        }
+
+        // one-off scan of 50 cold keys
+        for (int i = 0; i < 50; i++) {
+            pro.put("scan" + i, "s" + i);
+            lru.put("scan" + i, "s" + i);
+        }
+
+        int proHits = 0, lruHits = 0;
+        for (int i = 1; i <= 6; i++) {
+            if (pro.get("hot" + i) != null) proHits++;
+            if (lru.get("hot" + i) != null) lruHits++;
+        }
+        pro.printCache();
+        System.out.println("hot keys still cached: CLOCK-Pro " + proHits + "/6, LRU " + lruHits + "/6");
+    }
+}
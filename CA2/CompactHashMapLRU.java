@@ -0,0 +1,254 @@
+package CA2;
+
+import java.util.function.IntFunction;
+
+/**
+ * LRU cache where the hash table slots are the list nodes. HashMapLRU pays for a HashMap entry
+ * (hash, key, value, next) plus a separate Node (key, value, prev, next) per item; here one slot
+ * of a linear-probing table holds the hash, key, value and the prev/next LRU links, stored in
+ * parallel arrays so there is no per-entry object at all. Deletes use backward shift instead of
+ * tombstones; when an entry is shifted to another slot its list neighbours are re-pointed.
+ *
+ * Per entry this costs 20 bytes a slot (5 arrays of 4-byte ints/compressed references) times
+ * about 1.33 slots at the 0.75 load factor, roughly 27 bytes against about 80 for HashMapLRU,
+ * not counting the key and value Strings themselves. Run main to measure both.
+ */
+public class CompactHashMapLRU implements StringCache {
+    // End of the LRU list
+    private static final int NIL = -1;
+    private static final double LOAD_FACTOR = 0.75;
+
+
+    // Slot storage, an empty slot has a null key
+    private final int[] hashes;
+    private final String[] keys;
+    private final String[] values;
+    private final int[] prev;
+    private final int[] next;
+
+    // LRU Cache properties
+    private final int capacity;
+    private final int tableSize;
+    private int size;
+    private int head = NIL;   // most recently used
+    private int tail = NIL;   // least recently used
+
+
+
+    // Constructor, the table is sized once for capacity entries and never resized
+    public CompactHashMapLRU(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        // not rounded to a power of two, which could nearly double the slots per entry
+        this.tableSize = (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(capacity / LOAD_FACTOR) + 1);
+        hashes = new int[tableSize];
+        keys = new String[tableSize];
+        values = new String[tableSize];
+        prev = new int[tableSize];
+        next = new int[tableSize];
+    }
+
+
+
+    // Scramble hashCode so keys differing only in their low bits still differ in the high bits
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+
+    // Home slot of a hash, multiply-shift maps the high bits onto any table size without a division
+    private int home(int h) {
+        return (int) (((h & 0xFFFFFFFFL) * tableSize) >>> 32);
+    }
+
+
+
+    private int nextSlot(int slot) {
+        return slot + 1 == tableSize ? 0 : slot + 1;
+    }
+
+
+
+    // Probe distance from slot a forward to slot b
+    private int distance(int a, int b) {
+        return b >= a ? b - a : b + tableSize - a;
+    }
+
+
+
+    // Slot holding key, or -(slot + 1) for the empty slot where it would go
+    private int find(String key, int h) {
+        int slot = home(h);
+        while (keys[slot] != null) {
+            if (hashes[slot] == h && keys[slot].equals(key)) return slot;
+            slot = nextSlot(slot);
+        }
+        return -(slot + 1);
+    }
+
+
+
+    // Add a slot to the front of the list
+    private void addToFront(int slot) {
+        prev[slot] = NIL;
+        next[slot] = head;
+        if (head != NIL) prev[head] = slot;
+        head = slot;
+        if (tail == NIL) tail = slot;
+    }
+
+
+
+    // Remove a slot from the list
+    private void unlink(int slot) {
+        if (prev[slot] != NIL) next[prev[slot]] = next[slot];
+        else head = next[slot];
+        if (next[slot] != NIL) prev[next[slot]] = prev[slot];
+        else tail = prev[slot];
+    }
+
+
+
+    // Move a slot to the front (most recently used)
+    private void moveToFront(int slot) {
+        if (head == slot) return;
+        unlink(slot);
+        addToFront(slot);
+    }
+
+
+
+    // Move an entry to another slot, re-pointing its list neighbours at the new slot
+    private void moveSlot(int from, int to) {
+        hashes[to] = hashes[from];
+        keys[to] = keys[from];
+        values[to] = values[from];
+        prev[to] = prev[from];
+        next[to] = next[from];
+        if (prev[to] != NIL) next[prev[to]] = to;
+        else head = to;
+        if (next[to] != NIL) prev[next[to]] = to;
+        else tail = to;
+    }
+
+
+
+    // Unlink and clear a slot, shifting the rest of its probe run back (no tombstones)
+    private void removeSlot(int slot) {
+        unlink(slot);
+        int gap = slot;
+        int cur = nextSlot(slot);
+        while (keys[cur] != null) {
+            // move the entry into the gap if its home is not between the gap and cur
+            if (distance(home(hashes[cur]), cur) >= distance(gap, cur)) {
+                moveSlot(cur, gap);
+                gap = cur;
+            }
+            cur = nextSlot(cur);
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        size--;
+    }
+
+
+
+    // Get the value of a key if it exists in the cache
+    public String get(String key) {
+        if (key == null) return null;
+        int slot = find(key, hash(key));
+        if (slot < 0) return null;
+        moveToFront(slot);
+        return values[slot];
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        int h = hash(key);
+        int slot = find(key, h);
+        if (slot >= 0) {
+            values[slot] = value;
+            moveToFront(slot);
+            return;
+        }
+        if (size >= capacity) {
+            // evict LRU, the backward shift may move the run so look for the free slot again
+            removeSlot(tail);
+            slot = find(key, h);
+        }
+        slot = -(slot + 1);
+        hashes[slot] = h;
+        keys[slot] = key;
+        values[slot] = value;
+        addToFront(slot);
+        size++;
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        if (key == null) return;
+        int slot = find(key, hash(key));
+        if (slot >= 0) removeSlot(slot);
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return size;
+    }
+
+
+
+    // Print current cache state from most to least recently used
+    public void printCache() {
+        System.out.print("[MRU] ");
+        for (int cur = head; cur != NIL; cur = next[cur]) {
+            System.out.print(keys[cur] + ":" + values[cur] + " ");
+        }
+        System.out.println(" [LRU]");
+    }
+
+
+
+    // Heap taken by building and filling a cache, with the key/value Strings created up front
+    // so only the cache structure itself is counted
+    private static double bytesPerEntry(IntFunction<StringCache> factory, String[] keys) {
+        long before = CacheSimulator.usedHeap();
+        StringCache cache = factory.apply(keys.length);
+        for (String k : keys) cache.put(k, k);
+        long after = CacheSimulator.usedHeap();
+        return (double) (after - before) / cache.size();
+    }
+
+
+
+    // Demo
+    public static void main(String[] args) {
+        CompactHashMapLRU cache = new CompactHashMapLRU(3);
+        cache.put("1", "ryan");
+        cache.put("2", "julia");
+        cache.put("3", "shauna");
+        cache.get("1");
+        cache.put("4", "aoife");   // evicts 2
+        cache.delete("3");
+        cache.put("5", "siobhan");
+        cache.printCache();
+
+        // Memory per entry against HashMapLRU
+        int n = 500_000;
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) keys[i] = "key" + i;
+        double linked = bytesPerEntry(HashMapLRU::new, keys);
+        double compact = bytesPerEntry(CompactHashMapLRU::new, keys);
+        System.out.printf("HashMapLRU        %.1f bytes/entry%n", linked);
+        System.out.printf("CompactHashMapLRU %.1f bytes/entry%n", compact);
+    }
+}
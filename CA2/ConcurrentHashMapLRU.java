@@ -0,0 +1,338 @@
+package CA2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe LRU cache made of independent HashMapLRU segments. Each key is hashed to one
+ * segment and only that segment's lock is taken, so threads working on different segments
+ * don't block each other. Eviction is LRU within a segment (approximate LRU overall) and the
+ * segment capacities add up to the total capacity, so the global limit is still honoured.
+ */
+public class ConcurrentHashMapLRU implements StringCache {
+    // One segment = its own lock, list and map
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final HashMapLRU cache;
+        Segment(int capacity) { cache = new HashMapLRU(capacity); }
+    }
+
+
+    // Cache properties
+    private final Segment[] segments;
+    private final int segmentMask;
+    private volatile int capacity;
+
+
+
+    // Constructor, one segment per available core by default
+    public ConcurrentHashMapLRU(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+
+
+    // Constructor with an explicit segment count (rounded down to a power of two)
+    public ConcurrentHashMapLRU(int capacity, int concurrencyLevel) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        // never more segments than entries, otherwise some segments could hold nothing
+        int n = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, capacity)));
+        segments = new Segment[n];
+        segmentMask = n - 1;
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(segmentCapacity(capacity, i));
+        }
+    }
+
+
+
+    // Split capacity so the segment sizes add up to exactly the total
+    private int segmentCapacity(int capacity, int segment) {
+        int n = segments.length;
+        return capacity / n + (segment < capacity % n ? 1 : 0);
+    }
+
+
+
+    // Pick the segment for a key, spreading the high bits of hashCode into the low ones
+    private int segmentIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
+
+
+
+    private Segment segmentFor(String key) {
+        return segments[segmentIndex(key)];
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            s.cache.put(key, value);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+
+
+    // Get the value of a key if it exists in the cache
+    public String get(String key) {
+        if (key == null) return null;
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            return s.cache.get(key);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        if (key == null) return;
+        Segment s = segmentFor(key);
+        s.lock.lock();
+        try {
+            s.cache.delete(key);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+
+
+    // Sort keys into one list per segment so each segment's lock is taken once per batch
+    private List<List<String>> groupBySegment(Collection<String> keys) {
+        List<List<String>> groups = new ArrayList<>(segments.length);
+        for (int i = 0; i < segments.length; i++) groups.add(null);
+        for (String key : keys) {
+            if (key == null) continue;
+            int i = segmentIndex(key);
+            if (groups.get(i) == null) groups.set(i, new ArrayList<>());
+            groups.get(i).add(key);
+        }
+        return groups;
+    }
+
+
+
+    // Look up a batch of keys, locking each segment at most once
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        List<List<String>> groups = groupBySegment(keys);
+        for (int i = 0; i < segments.length; i++) {
+            List<String> group = groups.get(i);
+            if (group == null) continue;
+            Segment s = segments[i];
+            s.lock.lock();
+            try {
+                result.putAll(s.cache.getAll(group));
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+
+
+    // Insert or update every pair, locking each segment at most once
+    public void putAll(Map<String, String> entries) {
+        List<Map<String, String>> groups = new ArrayList<>(segments.length);
+        for (int i = 0; i < segments.length; i++) groups.add(null);
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            if (e.getKey() == null) continue;
+            int i = segmentIndex(e.getKey());
+            if (groups.get(i) == null) groups.set(i, new LinkedHashMap<>());
+            groups.get(i).put(e.getKey(), e.getValue());
+        }
+        for (int i = 0; i < segments.length; i++) {
+            Map<String, String> group = groups.get(i);
+            if (group == null) continue;
+            Segment s = segments[i];
+            s.lock.lock();
+            try {
+                s.cache.putAll(group);
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+
+
+    // Delete a batch of keys, locking each segment at most once
+    public void invalidateAll(Collection<String> keys) {
+        List<List<String>> groups = groupBySegment(keys);
+        for (int i = 0; i < segments.length; i++) {
+            List<String> group = groups.get(i);
+            if (group == null) continue;
+            Segment s = segments[i];
+            s.lock.lock();
+            try {
+                s.cache.invalidateAll(group);
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+
+
+    // Delete every entry in every segment
+    public void invalidateAll() {
+        for (Segment s : segments) {
+            s.lock.lock();
+            try {
+                s.cache.invalidateAll();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+
+
+    // Number of entries across all segments (each segment is read under its own lock)
+    public int size() {
+        int total = 0;
+        for (Segment s : segments) {
+            s.lock.lock();
+            try {
+                total += s.cache.size();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+
+
+    // Turn on get/put latency histograms in every segment
+    public void enableLatencyHistograms() {
+        for (Segment s : segments) s.cache.stats().enableLatencyHistograms();
+    }
+
+
+
+    // Counters added up over all segments, the lock is only held to read each segment's size
+    public CacheStats.Snapshot statsSnapshot() {
+        CacheStats.Snapshot total = null;
+        for (Segment s : segments) {
+            CacheStats.Snapshot snap;
+            s.lock.lock();
+            try {
+                snap = s.cache.statsSnapshot();
+            } finally {
+                s.lock.unlock();
+            }
+            total = (total == null) ? snap : total.plus(snap);
+        }
+        return total;
+    }
+
+
+
+    // Total capacity of the cache
+    public int capacity() {
+        return capacity;
+    }
+
+
+
+    // Change the total capacity, split across the segments the same way as the constructor does.
+    // Each segment lock is held only to set its new limit; when shrinking, each segment works off
+    // its excess a chunk at a time on later operations (see HashMapLRU.setCapacity).
+    public void setCapacity(int capacity) {
+        if (capacity < segments.length) {
+            throw new IllegalArgumentException("capacity must be at least the segment count " + segments.length);
+        }
+        synchronized (segments) {
+            this.capacity = capacity;
+            for (int i = 0; i < segments.length; i++) {
+                Segment s = segments[i];
+                s.lock.lock();
+                try {
+                    s.cache.setCapacity(segmentCapacity(capacity, i));
+                } finally {
+                    s.lock.unlock();
+                }
+            }
+        }
+    }
+
+
+
+    // Print every segment from most to least recently used
+    public void printCache() {
+        for (int i = 0; i < segments.length; i++) {
+            Segment s = segments[i];
+            s.lock.lock();
+            try {
+                System.out.print("segment " + i + ": ");
+                s.cache.printCache();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+
+
+    // Demo: several threads hammering the cache at once
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentHashMapLRU cache = new ConcurrentHashMapLRU(20, 4);
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    String key = String.valueOf((i * 7 + id) % 50);
+                    if (cache.get(key) == null) cache.put(key, "value" + key);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+
+        cache.printCache();
+        System.out.println("size " + cache.size() + " / capacity " + cache.capacity());
+        System.out.println(cache.statsSnapshot());
+
+        // bulk calls take each segment lock once
+        Map<String, String> batch = new HashMap<>();
+        for (int i = 100; i < 105; i++) batch.put(String.valueOf(i), "bulk" + i);
+        cache.putAll(batch);
+        System.out.println("getAll -> " + cache.getAll(Arrays.asList("100", "101", "102", "missing")));
+        cache.invalidateAll();
+        System.out.println("size after invalidateAll " + cache.size());
+
+        // resize at runtime: grow, fill, then shrink and let later gets work off the excess
+        cache.setCapacity(200);
+        for (int i = 0; i < 200; i++) cache.put(String.valueOf(i), "v");
+        cache.setCapacity(8);
+        System.out.print("size after shrinking to 8:");
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 4; i++) cache.get(String.valueOf(i));
+            System.out.print(" " + cache.size());
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,341 @@
+package CA2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * File-backed key-value store used as the overflow tier of TieredCache. Records are only ever
+ * appended to a log file; an in-memory index maps each key to the offset and length of its
+ * latest record, and reads are positional FileChannel reads at that offset. Overwritten and
+ * removed records become dead space, and once the dead bytes outweigh the live ones a
+ * background compaction copies the live records to a fresh log and swaps it in. When the live
+ * data goes over maxBytes the oldest written records are dropped first. A failed compaction
+ * (or one the executor rejects) leaves the old log in use, is logged and counted
+ * (compactionFailures), and is retried the next time the log qualifies.
+ *
+ * Record layout: int keyLength, int valueLength, key bytes (UTF-8), value bytes (UTF-8).
+ */
+public class DiskLogStore implements AutoCloseable {
+    // Where a record lives in the log
+    private static final class Location {
+        final long offset;
+        final int length;
+        Location(long offset, int length) { this.offset = offset; this.length = length; }
+    }
+
+
+    private static final int HEADER = 8;
+    // don't bother compacting logs smaller than this
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+
+
+    // Store properties, everything below is guarded by "this"
+    private final Path dir;
+    private final long maxBytes;
+    private final Executor compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final AtomicLong compactionFailures = new AtomicLong();
+    private volatile Exception lastCompactionFailure;
+    private final LinkedHashMap<String, Location> index = new LinkedHashMap<>();
+    private Path logFile;
+    private FileChannel log;
+    private long writePosition;
+    private long liveBytes;
+    private long deadBytes;
+    private int generation;
+
+
+
+    // Constructor, the log lives in dir and compaction runs on the given executor
+    public DiskLogStore(Path dir, long maxBytes, Executor compactor) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.compactor = compactor;
+        Files.createDirectories(dir);
+        this.logFile = dir.resolve("cache-0.log");
+        this.log = openLog(logFile);
+    }
+
+
+
+    private static FileChannel openLog(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+
+
+    // Encode a record into a buffer ready to write
+    private static ByteBuffer encode(String key, String value) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + k.length + v.length);
+        buf.putInt(k.length).putInt(v.length).put(k).put(v);
+        buf.flip();
+        return buf;
+    }
+
+
+
+    // Positional write of the whole buffer
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+
+
+
+    // Positional read of one whole record
+    private static ByteBuffer readRecord(FileChannel ch, Location loc) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(loc.length);
+        long position = loc.offset;
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0) throw new IOException("log truncated at " + position);
+            position += n;
+        }
+        buf.flip();
+        return buf;
+    }
+
+
+
+    // Append a record for the key, replacing any older one
+    public synchronized void put(String key, String value) {
+        try {
+            ByteBuffer buf = encode(key, value);
+            int length = buf.remaining();
+            writeFully(log, buf, writePosition);
+            Location old = index.remove(key);
+            if (old != null) {
+                liveBytes -= old.length;
+                deadBytes += old.length;
+            }
+            index.put(key, new Location(writePosition, length));
+            writePosition += length;
+            liveBytes += length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        evictOldest();
+        maybeCompact();
+    }
+
+
+
+    // Value for the key, or null if it isn't in the store
+    public synchronized String get(String key) {
+        Location loc = index.get(key);
+        if (loc == null) return null;
+        try {
+            ByteBuffer buf = readRecord(log, loc);
+            int keyLength = buf.getInt();
+            int valueLength = buf.getInt();
+            buf.position(HEADER + keyLength);
+            byte[] v = new byte[valueLength];
+            buf.get(v);
+            return new String(v, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+
+    // Forget the key, its record becomes dead space
+    public synchronized boolean remove(String key) {
+        Location loc = index.remove(key);
+        if (loc == null) return false;
+        liveBytes -= loc.length;
+        deadBytes += loc.length;
+        maybeCompact();
+        return true;
+    }
+
+
+
+    // Drop the oldest written records while the live data is over budget
+    private void evictOldest() {
+        Iterator<Map.Entry<String, Location>> it = index.entrySet().iterator();
+        while (liveBytes > maxBytes && it.hasNext()) {
+            Location loc = it.next().getValue();
+            it.remove();
+            liveBytes -= loc.length;
+            deadBytes += loc.length;
+        }
+    }
+
+
+
+    // Start a background compaction once more than half of the log is dead
+    private void maybeCompact() {
+        if (writePosition >= MIN_COMPACT_BYTES && deadBytes > liveBytes && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } catch (IOException | RuntimeException e) {
+                        compactionFailed(e);
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // rejected (executor shut down or saturated): the task never runs, so clear the
+                // flag here or no compaction would ever start again
+                compacting.set(false);
+                compactionFailed(e);
+            }
+        }
+    }
+
+
+
+    // Count and log a compaction that did not happen, the old log stays in use
+    private void compactionFailed(Exception e) {
+        compactionFailures.incrementAndGet();
+        lastCompactionFailure = e;
+        Logger.getLogger(DiskLogStore.class.getName()).log(Level.WARNING, "disk tier compaction failed", e);
+    }
+
+
+
+    // Copy the live records to a new log. The bulk copy runs without the lock, reading the old
+    // log (which is append-only, so the records stay put); records written meanwhile are copied
+    // under the lock at the end, then the new log is swapped in.
+    void compact() throws IOException {
+        List<Map.Entry<String, Location>> live;
+        Path oldFile;
+        FileChannel oldLog;
+        Path newFile;
+        synchronized (this) {
+            live = new ArrayList<>(index.entrySet());
+            oldFile = logFile;
+            oldLog = log;
+            newFile = dir.resolve("cache-" + (++generation) + ".log");
+        }
+
+        FileChannel newLog = openLog(newFile);
+        try {
+            copyLive(live, oldLog, newLog, newFile);
+        } catch (IOException | RuntimeException e) {
+            // the old log is still the live one, throw the half-written copy away
+            try {
+                newLog.close();
+                Files.deleteIfExists(newFile);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        oldLog.close();
+        Files.deleteIfExists(oldFile);
+    }
+
+
+
+    // Body of compact: copy the snapshot, then catch up and swap the new log in under the lock
+    private void copyLive(List<Map.Entry<String, Location>> live, FileChannel oldLog, FileChannel newLog,
+                          Path newFile) throws IOException {
+        // old location -> new location, keyed by the Location objects taken in the snapshot
+        IdentityHashMap<Location, Location> moved = new IdentityHashMap<>();
+        long position = 0;
+        for (Map.Entry<String, Location> e : live) {
+            ByteBuffer record = readRecord(oldLog, e.getValue());
+            int length = record.remaining();
+            writeFully(newLog, record, position);
+            moved.put(e.getValue(), new Location(position, length));
+            position += length;
+        }
+
+        synchronized (this) {
+            LinkedHashMap<String, Location> newIndex = new LinkedHashMap<>();
+            long newLive = 0;
+            for (Map.Entry<String, Location> e : index.entrySet()) {
+                Location current = e.getValue();
+                Location copied = moved.get(current);
+                if (copied != null) {
+                    // unchanged since the snapshot, use the copy
+                    newIndex.put(e.getKey(), copied);
+                } else {
+                    // written during the copy, bring its latest record across now
+                    ByteBuffer record = readRecord(log, current);
+                    int length = record.remaining();
+                    writeFully(newLog, record, position);
+                    newIndex.put(e.getKey(), new Location(position, length));
+                    position += length;
+                }
+                newLive += newIndex.get(e.getKey()).length;
+            }
+            index.clear();
+            index.putAll(newIndex);
+            log = newLog;
+            logFile = newFile;
+            writePosition = position;
+            liveBytes = newLive;
+            deadBytes = 0;
+        }
+    }
+
+
+
+    // Compactions that failed and left the old log in place
+    public long compactionFailures() {
+        return compactionFailures.get();
+    }
+
+
+
+    // The most recent compaction failure, or null if none has failed
+    public Exception lastCompactionFailure() {
+        return lastCompactionFailure;
+    }
+
+
+
+    // Number of keys in the store
+    public synchronized int size() {
+        return index.size();
+    }
+
+
+
+    // Bytes of live records
+    public synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+
+
+    // Size of the log file including dead records
+    public synchronized long logBytes() {
+        return writePosition;
+    }
+
+
+
+    // Close and delete the log, the tier is a cache so nothing needs to survive
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+        Files.deleteIfExists(logFile);
+    }
+}
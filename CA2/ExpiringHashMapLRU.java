@@ -0,0 +1,250 @@
+package CA2;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * HashMapLRU with time-to-live support. Entries can expire a fixed time after they were
+ * written, after they were last read, or after a per-entry TTL given to put. Expired entries
+ * are reclaimed by a TimerWheel that is advanced on every operation, so there is no sweep
+ * thread and no scan of the list, and get treats an entry past its deadline as a miss even
+ * if the wheel has not reached it yet.
+ */
+public class ExpiringHashMapLRU implements StringCache {
+    class Node extends TimerWheel.Timer {
+        String key;
+        String value;
+        long writeExpiresAt;   // hard deadline from the write, access can't extend past it
+        Node prev, next;
+        Node(String k, String v) { key = k; value = v; }
+    }
+
+
+    // Means "never expires"
+    private static final long NEVER = Long.MAX_VALUE;
+
+
+    // LRU Cache properties
+    private final HashMap<String, Node> map;
+    private final int capacity;
+    private final Node head;
+    private final Node tail;
+
+    // Expiry properties (durations in nanoseconds, 0 means disabled)
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final LongSupplier ticker;
+    private final TimerWheel timerWheel;
+
+
+
+    // Constructor, pass 0 for either duration to switch that kind of expiry off
+    public ExpiringHashMapLRU(int capacity, long expireAfterWrite, long expireAfterAccess, TimeUnit unit) {
+        this(capacity, expireAfterWrite, expireAfterAccess, unit, System::nanoTime);
+    }
+
+
+
+    // Constructor with an explicit nanosecond clock, handy for demos and tests
+    public ExpiringHashMapLRU(int capacity, long expireAfterWrite, long expireAfterAccess, TimeUnit unit,
+                              LongSupplier ticker) {
+        this.capacity = capacity;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.ticker = ticker;
+        this.map = new HashMap<>();
+        this.timerWheel = new TimerWheel(ticker.getAsLong(), t -> evict((Node) t));
+        head = new Node(null, null);
+        tail = new Node(null, null);
+        head.next = tail;
+        tail.prev = head;
+    }
+
+
+
+    // Add a node to the front of the list
+    private void addToFront(Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from the list
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // Move a node to the front (most recently used)
+    private void moveToFront(Node node) {
+        removeNode(node);
+        addToFront(node);
+    }
+
+
+
+    // Drop a node from the map, the list and the wheel
+    private void evict(Node node) {
+        map.remove(node.key);
+        if (node.prev != null) removeNode(node);
+        timerWheel.deschedule(node);
+    }
+
+
+
+    // Deadline for a write now with the given ttl (0 = use the cache default)
+    private long writeDeadline(long now, long ttlNanos) {
+        long ttl = ttlNanos > 0 ? ttlNanos : expireAfterWriteNanos;
+        return ttl > 0 ? now + ttl : NEVER;
+    }
+
+
+
+    // Set the node's deadline from its write deadline and (if enabled) the access timeout
+    private void updateDeadline(Node node, long now) {
+        long deadline = node.writeExpiresAt;
+        if (expireAfterAccessNanos > 0) {
+            deadline = Math.min(deadline, now + expireAfterAccessNanos);
+        }
+        node.expiresAt = deadline;
+        if (deadline == NEVER) {
+            timerWheel.deschedule(node);
+        } else {
+            timerWheel.reschedule(node);
+        }
+    }
+
+
+
+    private boolean isExpired(Node node, long now) {
+        return node.expiresAt != NEVER && node.expiresAt - now <= 0;
+    }
+
+
+
+    // Insert or update a key-value pair using the cache's default expiry
+    public void put(String key, String value) {
+        put(key, value, 0, TimeUnit.NANOSECONDS);
+    }
+
+
+
+    // Insert or update a key-value pair that expires ttl after this write
+    public void put(String key, String value, long ttl, TimeUnit unit) {
+        if (key == null) return;
+        long now = ticker.getAsLong();
+        timerWheel.advance(now);
+
+        Node n = map.get(key);
+        if (n == null) {
+            // New key
+            if (map.size() >= capacity) {
+                // evict LRU
+                Node lru = tail.prev;
+                if (lru != head) evict(lru);
+            }
+            n = new Node(key, value);
+            addToFront(n);
+            map.put(key, n);
+        } else {
+            n.value = value;
+            moveToFront(n);
+        }
+        n.writeExpiresAt = writeDeadline(now, unit.toNanos(ttl));
+        updateDeadline(n, now);
+    }
+
+
+
+    // Get the value of a key if it exists in the cache and hasn't expired
+    public String get(String key) {
+        if (key == null) return null;
+        long now = ticker.getAsLong();
+        timerWheel.advance(now);
+
+        Node n = map.get(key);
+        if (n == null) return null;
+        if (isExpired(n, now)) {
+            // the wheel only works to bucket granularity, so double check the exact deadline
+            evict(n);
+            return null;
+        }
+        moveToFront(n);
+        if (expireAfterAccessNanos > 0) updateDeadline(n, now);
+        return n.value;
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        timerWheel.advance(ticker.getAsLong());
+        Node n = map.get(key);
+        if (n == null) return;
+        evict(n);
+    }
+
+
+
+    // Expire anything that is due without doing a lookup
+    public void cleanUp() {
+        timerWheel.advance(ticker.getAsLong());
+    }
+
+
+
+    // Number of entries currently cached (may include expired entries not reclaimed yet)
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Print current cache state from most to least recently used
+    public void printCache() {
+        Node cur = head.next;
+        System.out.print("[MRU] ");
+        while (cur != tail) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+            cur = cur.next;
+        }
+        System.out.println(" [LRU]");
+    }
+
+
+
+    // Demo with a fake clock so the expiry is easy to follow
+    public static void main(String[] args) {
+        long[] clock = { 0 };
+        ExpiringHashMapLRU cache = new ExpiringHashMapLRU(20, 10, 3, TimeUnit.SECONDS, () -> clock[0]);
+
+        cache.put("1", "ryan");
+        cache.put("2", "julia");
+        cache.put("3", "shauna", 1, TimeUnit.HOURS);   // own ttl, still limited by the 3s access timeout
+        cache.printCache();
+
+        // 2 seconds later: read key 1 so its access timeout restarts
+        clock[0] += TimeUnit.SECONDS.toNanos(2);
+        System.out.println("get 1 -> " + cache.get("1"));
+
+        // 4 seconds in: key 2 and 3 haven't been read for over 3s and get reclaimed by the wheel
+        clock[0] += TimeUnit.SECONDS.toNanos(2);
+        System.out.println("get 1 -> " + cache.get("1"));
+        cache.printCache();
+
+        // keep reading key 1, but it still can't outlive its 10s write timeout
+        for (int i = 0; i < 3; i++) {
+            clock[0] += TimeUnit.SECONDS.toNanos(2);
+            System.out.println("t=" + TimeUnit.NANOSECONDS.toSeconds(clock[0]) + "s get 1 -> " + cache.get("1"));
+        }
+        System.out.println("size " + cache.size());
+    }
+}
@@ -0,0 +1,109 @@
+package CA2;
+
+/**
+ * Count-min sketch with 4-bit counters used to estimate how often a key has been seen.
+ * Sixteen counters are packed into each long and every key maps to one counter in each of
+ * four rows; the estimate is the smallest of those four. Once the number of increments
+ * reaches the sample size every counter is halved, so old popularity fades away (aging).
+ *
+ * Adapted from Caffeine's FrequencySketch (hash seeds, reset mask and the index/increment
+ * scheme), https://github.com/ben-manes/caffeine
+ * Copyright Ben Manes. Licensed under the Apache License, Version 2.0:
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Changes: not thread-safe, sized once in the constructor, no ensureCapacity.
+ */
+public class FrequencySketch {
+    // Seeds for the four hash rows
+    private static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+
+    // Sketch properties
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+
+
+    // Constructor, sized for the number of entries the cache can hold
+    public FrequencySketch(int maximumSize) {
+        int n = Integer.highestOneBit(Math.max(2, maximumSize) - 1) << 1;
+        table = new long[n];
+        tableMask = n - 1;
+        sampleSize = 10 * Math.max(1, maximumSize);
+    }
+
+
+
+    // Mix the key's hashCode so nearby hashes spread out
+    private int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+
+
+    // Table index of the long that holds the key's counter for row i
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+
+
+    // Estimated number of times the key has been seen (0 to 15)
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+
+
+    // Record one more occurrence of the key
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        // age the sketch once enough increments have been recorded
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+
+
+    // Increment counter j of table[i] unless it is already at its maximum of 15
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+
+
+    // Halve every counter so the sketch favours recent history
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = size / 2;
+    }
+}
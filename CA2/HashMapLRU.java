@@ -1,15 +1,35 @@
 package CA2;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simple LRU cache using a HashMap for key->node lookup and a doubly-linked list for ordering.
  * Supports put, get, delete and automatic eviction when capacity is exceeded.
  */
-public class HashMapLRU {
+public class HashMapLRU implements StringCache {
     class Node {
         String key;
         String value;
+        int weight;
         Node prev, next;
         Node(String k, String v) { key = k; value = v; }
     }
@@ -17,14 +37,51 @@ public class HashMapLRU {
 
     // LRU Cache properties
     private final HashMap<String, Node> map;
-    private final int capacity;
+    private int capacity;
     private final Node head;
     private final Node tail; 
 
+    // Weight mode: capped on total bytes instead of entry count (weigher is null in count mode)
+    private final Weigher weigher;
+    private long maxWeight;
+    private long totalWeight;
+
+    // Set when the limit was lowered below the current size, the excess is evicted a chunk at a time
+    private static final int EVICTION_CHUNK = 16;
+    private boolean shrinking;
+
+    // Hit/miss/eviction counters
+    private final CacheStats stats = new CacheStats();
+
+    // Optional removal events, null when nobody is listening
+    private RemovalDispatcher removalDispatcher;
+
+    // Optional backing store: written on every put/delete (write-through) or queued (write-behind)
+    private CacheWriter writeThrough;
+    private WriteBehindQueue writeBehind;
+
+    // A write-behind flush that failed while evicting, thrown once the operation has finished
+    private RuntimeException evictionFlushFailure;
+
 
     // Constructor
     public HashMapLRU(int capacity) {
+        this(capacity, null, 0);
+    }
+
+
+
+    // Constructor for a cache capped on the total weight of its entries in bytes
+    public HashMapLRU(long maxWeight, Weigher weigher) {
+        this(Integer.MAX_VALUE, weigher == null ? Weigher.STRING_SIZE : weigher, maxWeight);
+    }
+
+
+
+    private HashMapLRU(int capacity, Weigher weigher, long maxWeight) {
         this.capacity = capacity;
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
         this.map = new HashMap<>();
         head = new Node(null, null);
         tail = new Node(null, null);
@@ -64,48 +121,404 @@ public class HashMapLRU {
     // Insert or update a key-value pair
     public void put(String key, String value) {
         if (key == null) return;
-        if (map.containsKey(key)) {
-            Node n = map.get(key);
+        long start = stats.startTimer();
+        if (shrinking) evictExcess();
+        if (writeThrough != null) writeThrough.write(key, value);
+        else if (writeBehind != null) writeBehind.enqueue(key, value);
+        putInternal(key, value);
+        stats.recordPut(start);
+        throwEvictionFlushFailure();
+    }
+
+
+
+    private void putInternal(String key, String value) {
+        int weight = weigher == null ? 0 : weigher.weigh(key, value);
+        if (weigher != null && weight > maxWeight) {
+            // can never fit, drop any old value rather than flush the whole cache
+            Node old = map.remove(key);
+            if (old != null) {
+                removeNode(old);
+                totalWeight -= old.weight;
+                notifyRemoval(old.key, old.value, RemovalCause.SIZE);
+            }
+            // the new value isn't cached, so it can't wait for a later flush
+            if (writeBehind != null) writeBehind.flush(key);
+            return;
+        }
+        Node n = map.get(key);
+        if (n != null) {
+            notifyRemoval(key, n.value, RemovalCause.REPLACED);
+            totalWeight += weight - n.weight;
             n.value = value;
+            n.weight = weight;
             moveToFront(n);
+            evictToFit(0);
             return;
         }
         // New key
-        if (map.size() >= capacity) {
+        if (weigher != null) {
+            evictToFit(weight);
+        } else if (map.size() >= capacity) {
             // evict LRU
             Node lru = tail.prev;
-            if (lru != head) {
-                removeNode(lru);
-                map.remove(lru.key);
-            }
+            if (lru != head) evict(lru);
         }
         // Insert new node
         Node node = new Node(key, value);
+        node.weight = weight;
+        totalWeight += weight;
         addToFront(node);
         map.put(key, node);
     }
 
 
+
+    // Evict from the LRU end until an extra `incoming` bytes fit in the weight budget.
+    // While a shrink is being worked off, only make room so the cache doesn't grow.
+    private void evictToFit(long incoming) {
+        if (weigher == null) return;
+        long limit = shrinking ? Math.max(maxWeight, totalWeight) : maxWeight;
+        while (totalWeight + incoming > limit && tail.prev != head) {
+            evict(tail.prev);
+        }
+    }
+
+
+
+    // Remove an entry to make room and count it as an eviction
+    private void evict(Node lru) {
+        removeNode(lru);
+        map.remove(lru.key);
+        totalWeight -= lru.weight;
+        stats.recordEviction();
+        // a dirty entry is written before it leaves the cache, so a later miss reads it from the store.
+        // If the write fails the value is back on the queue; the failure is held until the
+        // operation that evicted has finished, so the cache isn't left half way through it
+        if (writeBehind != null) {
+            try {
+                writeBehind.flush(lru.key);
+            } catch (RuntimeException e) {
+                if (evictionFlushFailure == null) evictionFlushFailure = e;
+                else evictionFlushFailure.addSuppressed(e);
+            }
+        }
+        notifyRemoval(lru.key, lru.value, RemovalCause.SIZE);
+    }
+
+
+
+    private void throwEvictionFlushFailure() {
+        RuntimeException e = evictionFlushFailure;
+        if (e == null) return;
+        evictionFlushFailure = null;
+        throw e;
+    }
+
+
+
+    // Change the entry limit. Growing is immediate; when shrinking, the excess is evicted at most
+    // EVICTION_CHUNK entries per later put/get/delete so there is no single long pause.
+    public void setCapacity(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        if (weigher != null) throw new IllegalStateException("cache is capped on weight, use setMaxWeight");
+        this.capacity = capacity;
+        shrinking = map.size() > capacity;
+    }
+
+
+
+    // Change the weight limit in weight mode, shrinking is spread out the same way as setCapacity
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight < 0) throw new IllegalArgumentException("maxWeight must not be negative");
+        if (weigher == null) throw new IllegalStateException("cache is capped on entry count, use setCapacity");
+        this.maxWeight = maxWeight;
+        shrinking = totalWeight > maxWeight;
+    }
+
+
+
+    // Evict one bounded chunk of the entries left over the limit by a shrink
+    private void evictExcess() {
+        for (int i = 0; i < EVICTION_CHUNK && overLimit() && tail.prev != head; i++) {
+            evict(tail.prev);
+        }
+        shrinking = overLimit();
+    }
+
+
+
+    private boolean overLimit() {
+        return weigher == null ? map.size() > capacity : totalWeight > maxWeight;
+    }
+
+
+
+    // Send removed entries to the dispatcher's queue (delivered later on its executor)
+    public void setRemovalDispatcher(RemovalDispatcher dispatcher) {
+        this.removalDispatcher = dispatcher;
+    }
+
+
+
+    private void notifyRemoval(String key, String value, RemovalCause cause) {
+        if (removalDispatcher != null) removalDispatcher.notify(key, value, cause);
+    }
+
+
+
+    // Write-through: every put and delete goes to the writer before the cache is changed,
+    // so if the writer throws the cache is left as it was
+    public void setWriteThrough(CacheWriter writer) {
+        this.writeThrough = writer;
+        this.writeBehind = null;
+    }
+
+
+
+    // Write-behind: puts and deletes are queued and written later in coalesced batches
+    public void setWriteBehind(WriteBehindQueue queue) {
+        this.writeBehind = queue;
+        this.writeThrough = null;
+    }
+
+
     // Get the value of a key if it exists in the cache
     public String get(String key) {
+        long start = stats.startTimer();
+        if (shrinking) evictExcess();
         Node n = map.get(key);
-        if (n == null) return null;
-        moveToFront(n);
-        return n.value;
+        if (n != null) moveToFront(n);
+        stats.recordGet(start, n != null);
+        throwEvictionFlushFailure();
+        return n == null ? null : n.value;
     }
 
 
 
 
-    // Delete a key from the cache
+    // Delete a key from the cache (and from the backing store, if there is one)
     public void delete(String key) {
+        if (key == null) return;
+        if (writeThrough != null) writeThrough.delete(key);
+        else if (writeBehind != null) writeBehind.enqueueDelete(key);
+        invalidate(key);
+    }
+
+
+
+    // Drop a key from the cache only, the backing store keeps its value (a queued write-behind
+    // update for the key is still written)
+    public void invalidate(String key) {
+        if (key == null) return;
+        if (shrinking) evictExcess();
         Node n = map.remove(key);
-        if (n == null) return;
-        removeNode(n);
+        if (n != null) {
+            removeNode(n);
+            totalWeight -= n.weight;
+            notifyRemoval(n.key, n.value, RemovalCause.EXPLICIT);
+        }
+        throwEvictionFlushFailure();
     }
 
 
 
+    // Look up a batch of keys, returning only the ones that are cached.
+    // Duplicate keys are looked up once, so each key counts as one hit or miss and a cached key
+    // is moved to the front only once.
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (key == null) continue;
+            long start = stats.startTimer();
+            Node n = map.get(key);
+            if (n != null) {
+                moveToFront(n);
+                result.put(key, n.value);
+            }
+            stats.recordGet(start, n != null);
+        }
+        return result;
+    }
+
+
+
+    // Insert or update every pair in the map
+    public void putAll(Map<String, String> entries) {
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+
+
+    // Drop a batch of keys from the cache only, like invalidate
+    public void invalidateAll(Collection<String> keys) {
+        for (String key : keys) {
+            invalidate(key);
+        }
+    }
+
+
+
+    // Drop every entry from the cache only, walking the list once rather than key by key
+    public void invalidateAll() {
+        Node cur = head.next;
+        while (cur != tail) {
+            Node next = cur.next;
+            notifyRemoval(cur.key, cur.value, RemovalCause.EXPLICIT);
+            cur.prev = null;
+            cur.next = null;
+            cur = next;
+        }
+        head.next = tail;
+        tail.prev = head;
+        map.clear();
+        totalWeight = 0;
+        shrinking = false;
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Total weight of the cached entries in bytes (0 in count mode)
+    public long weight() {
+        return totalWeight;
+    }
+
+
+
+    // Counters for this cache, call stats().enableLatencyHistograms() for get/put latencies
+    public CacheStats stats() {
+        return stats;
+    }
+
+
+
+    // Snapshot of the counters, current weight is bytes in weight mode or entries in count mode
+    public CacheStats.Snapshot statsSnapshot() {
+        return stats.snapshot(weigher == null ? map.size() : totalWeight);
+    }
+
+
+
+
+    // Snapshot file header: "LRU1" followed by the entry count
+    private static final int SNAPSHOT_MAGIC = 0x4C525531;
+
+
+
+    // Write every entry from most to least recently used to a compact binary file.
+    // Layout: magic, count, then per entry key length + UTF-8 key, value length + UTF-8 value
+    // (-1 for a null value). Written to a temp file first so a crash never leaves half a snapshot;
+    // if the write fails the temp file is deleted and the old snapshot stays.
+    public void saveSnapshot(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(map.size());
+                for (Node cur = head.next; cur != tail; cur = cur.next) {
+                    writeString(out, cur.key);
+                    writeString(out, cur.value);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+
+    // Warm start from a snapshot file. The file is memory-mapped and read in one pass; each
+    // entry is linked straight onto the LRU end, so the recency order in the file is kept without
+    // going through put. Keys already in the cache are newer and are skipped. Loading stops once
+    // the cache is full. Returns the number of entries loaded. A truncated or corrupt file, or one
+    // too big to map (over 2 GB), throws IOException, entries read before the bad one stay loaded.
+    public int loadSnapshot(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("LRU snapshot too large to map (" + ch.size() + " bytes): " + file);
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 8 || buf.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not an LRU snapshot: " + file);
+            }
+            int count = buf.getInt();
+            // every entry takes at least its two length fields
+            if (count < 0 || count > buf.remaining() / 8) {
+                throw new IOException("corrupt LRU snapshot, bad entry count " + count + ": " + file);
+            }
+            int loaded = 0;
+            for (int i = 0; i < count && map.size() < capacity; i++) {
+                String key = readString(buf, file);
+                String value = readString(buf, file);
+                if (key == null || map.containsKey(key)) continue;
+                int weight = weigher == null ? 0 : weigher.weigh(key, value);
+                if (weigher != null && totalWeight + weight > maxWeight) break;
+                Node node = new Node(key, value);
+                node.weight = weight;
+                totalWeight += weight;
+                addToBack(node);
+                map.put(key, node);
+                loaded++;
+            }
+            return loaded;
+        }
+    }
+
+
+
+    // Length-prefixed UTF-8 string, every length is checked against what is left of the file
+    private static String readString(MappedByteBuffer buf, Path file) throws IOException {
+        if (buf.remaining() < 4) throw new IOException("truncated LRU snapshot: " + file);
+        int len = buf.getInt();
+        if (len == -1) return null;
+        if (len < 0 || len > buf.remaining()) {
+            throw new IOException("corrupt LRU snapshot, bad string length " + len + ": " + file);
+        }
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+
+    // Add a node at the LRU end of the list (used when rebuilding from a snapshot)
+    private void addToBack(Node node) {
+        node.prev = tail.prev;
+        node.next = tail;
+        tail.prev.next = node;
+        tail.prev = node;
+    }
+
+
 
     // Print current cache state from most to least recently used
     public void printCache() {
@@ -142,7 +555,7 @@ public class HashMapLRU {
 
 
     // Demo
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
         HashMapLRU cache = new HashMapLRU(20);
         cache.put("1", "ryan");
         cache.put("2", "julia");
@@ -185,5 +598,79 @@ public class HashMapLRU {
         cache.put("22", "Elderberry");
         cache.put("23", "Fig");
         cache.printCache();
+
+
+        // Weight mode: capped at 400 bytes, a big value pushes out several small ones
+        HashMapLRU weighted = new HashMapLRU(400L, Weigher.STRING_SIZE);
+        weighted.put("a", "x");
+        weighted.put("b", "y");
+        weighted.put("c", "z");
+        weighted.printCache();
+        weighted.put("big", "a much longer value that needs a lot more room than the others");
+        weighted.printCache();
+        System.out.println("weight " + weighted.weight() + " / 400 bytes");
+
+
+        // Statistics: counters are always on, latency histograms on request
+        cache.stats().enableLatencyHistograms();
+        for (int i = 0; i < 1000; i++) {
+            if (cache.get(String.valueOf(i % 40)) == null) cache.put(String.valueOf(i % 40), "v");
+        }
+        System.out.println(cache.statsSnapshot());
+
+
+        // Snapshot and warm start: the recency order survives the round trip
+        Path snapshot = Files.createTempFile("lru", ".snapshot");
+        cache.saveSnapshot(snapshot);
+        HashMapLRU warm = new HashMapLRU(20);
+        System.out.println("warm start loaded " + warm.loadSnapshot(snapshot) + " entries");
+        warm.printCache();
+        Files.delete(snapshot);
+
+
+        // Bulk lookup: duplicate and missing keys are fine
+        System.out.println("getAll -> " + warm.getAll(Arrays.asList("39", "30", "39", "nope")));
+
+
+        // Removal listener: evicted entries are flushed in batches on a background thread
+        ExecutorService flusher = Executors.newSingleThreadExecutor();
+        warm.setRemovalDispatcher(new RemovalDispatcher(
+            batch -> System.out.println("flushed batch of " + batch.size() + ": " + batch),
+            1024, 4, RemovalDispatcher.Backpressure.BLOCK, flusher));
+        for (int i = 100; i < 106; i++) warm.put(String.valueOf(i), "new");
+        warm.delete("100");
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+
+
+        // Write-behind: ten updates to one key reach the store as a single write, and an
+        // evicted dirty entry is written before it is dropped
+        Map<String, String> store = new HashMap<>();
+        CacheWriter slowStore = new CacheWriter() {
+            public void write(String key, String value) { synchronized (store) { store.put(key, value); } }
+            public void delete(String key) { synchronized (store) { store.remove(key); } }
+        };
+        HashMapLRU writeCache = new HashMapLRU(2);
+        try (WriteBehindQueue queue = new WriteBehindQueue(slowStore, 100, 1, TimeUnit.SECONDS)) {
+            writeCache.setWriteBehind(queue);
+            for (int i = 0; i < 10; i++) writeCache.put("counter", String.valueOf(i));
+            writeCache.put("a", "1");
+            writeCache.put("b", "2");   // evicts counter, which is flushed straight away
+            synchronized (store) { System.out.println("store after eviction " + store); }
+            System.out.println("pending " + queue.pending() + ", coalesced " + queue.coalescedCount());
+        }
+        System.out.println("store after close " + store);
+
+
+        // Resizing: shrinking from 100 to 10 evicts a chunk per operation instead of all at once
+        HashMapLRU resizable = new HashMapLRU(100);
+        for (int i = 0; i < 100; i++) resizable.put(String.valueOf(i), "v");
+        resizable.setCapacity(10);
+        System.out.print("size after each get:");
+        for (int i = 0; i < 7; i++) {
+            resizable.get("99");
+            System.out.print(" " + resizable.size());
+        }
+        System.out.println();
     }
 }
@@ -0,0 +1,227 @@
+package CA2;
+
+import java.util.Arrays;
+
+/**
+ * Primitive int-keyed LRU cache. Same behaviour as LRUCache but keys, values and the
+ * prev/next links live in parallel int arrays and lookups go through an open-addressing
+ * index, so get and put never box a key or allocate a node after construction.
+ */
+public class IntLRUCache {
+    // Marks an empty slot in the index table
+    private static final int EMPTY = -1;
+
+
+    // Entry storage, one slot per cached entry. Slot "capacity" is the list sentinel
+    private final int[] keys;
+    private final int[] values;
+    private final int[] prev;
+    private final int[] next;
+
+    // Open-addressing index: key hash -> entry slot (EMPTY when free)
+    private final int[] index;
+    private final int mask;
+
+    // LRU Cache properties
+    private final int capacity;
+    private final int sentinel;
+    private int size;
+    private int freeHead;
+
+
+
+    // Constructor
+    public IntLRUCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        this.sentinel = capacity;
+        keys = new int[capacity + 1];
+        values = new int[capacity + 1];
+        prev = new int[capacity + 1];
+        next = new int[capacity + 1];
+
+        // index is a power of two at least twice the capacity so probe runs stay short
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        index = new int[tableSize];
+        mask = tableSize - 1;
+        Arrays.fill(index, EMPTY);
+
+        // empty circular list around the sentinel
+        prev[sentinel] = sentinel;
+        next[sentinel] = sentinel;
+
+        // chain every slot onto the free list using next[]
+        for (int i = 0; i < capacity - 1; i++) next[i] = i + 1;
+        next[capacity - 1] = EMPTY;
+        freeHead = 0;
+    }
+
+
+
+    // Spread the key bits so sequential keys don't land in one probe run
+    private int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+
+
+    // Find the index position holding key, or the empty position where it would go
+    private int probe(int key) {
+        int pos = hash(key);
+        while (index[pos] != EMPTY && keys[index[pos]] != key) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+
+
+    // Clear an index position and shift the rest of the probe run back (no tombstones)
+    private void removeFromIndex(int pos) {
+        int gap = pos;
+        int cur = (pos + 1) & mask;
+        while (index[cur] != EMPTY) {
+            int home = hash(keys[index[cur]]);
+            // move the entry into the gap if its home is not between the gap and cur
+            if (((cur - home) & mask) >= ((cur - gap) & mask)) {
+                index[gap] = index[cur];
+                gap = cur;
+            }
+            cur = (cur + 1) & mask;
+        }
+        index[gap] = EMPTY;
+    }
+
+
+
+    // Add a slot to the front of the list
+    private void addToFront(int slot) {
+        prev[slot] = sentinel;
+        next[slot] = next[sentinel];
+        prev[next[sentinel]] = slot;
+        next[sentinel] = slot;
+    }
+
+
+
+    // Remove a slot from the list
+    private void unlink(int slot) {
+        next[prev[slot]] = next[slot];
+        prev[next[slot]] = prev[slot];
+    }
+
+
+
+    // Move a slot to the front (most recently used)
+    private void moveToFront(int slot) {
+        if (next[sentinel] == slot) return;
+        unlink(slot);
+        addToFront(slot);
+    }
+
+
+
+    // Get the value of a key if it exists in the cache, -1 otherwise (same as LRUCache)
+    public int get(int key) {
+        int slot = index[probe(key)];
+        if (slot == EMPTY) return -1;
+        moveToFront(slot);
+        return values[slot];
+    }
+
+
+
+    // Insert a key-value pair into the cache
+    public void put(int key, int value) {
+        int pos = probe(key);
+        int slot = index[pos];
+
+        // if key exists, update value and move to front
+        if (slot != EMPTY) {
+            values[slot] = value;
+            moveToFront(slot);
+            return;
+        }
+
+        if (size >= capacity) {
+            // evict LRU and reuse its slot directly
+            slot = prev[sentinel];
+            unlink(slot);
+            removeFromIndex(probe(keys[slot]));
+            // the backward shift may have moved the run, so find the insert position again
+            pos = probe(key);
+        } else {
+            slot = freeHead;
+            freeHead = next[slot];
+            size++;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        index[pos] = slot;
+        addToFront(slot);
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(int key) {
+        int pos = probe(key);
+        int slot = index[pos];
+        if (slot == EMPTY) return;
+        removeFromIndex(pos);
+        unlink(slot);
+        // give the slot back to the free list
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return size;
+    }
+
+
+
+    // Print the cache for debugging, most to least recently used
+    public void printCache() {
+        int curr = next[sentinel];
+        while (curr != sentinel) {
+            System.out.print(keys[curr] + ":" + values[curr] + " ");
+            curr = next[curr];
+        }
+        System.out.println();
+    }
+
+
+
+    // Main method to test the primitive LRU cache (mirrors LRUCache.main)
+    public static void main(String[] args) {
+        IntLRUCache lruCache = new IntLRUCache(3);
+
+        // Insert items
+        lruCache.put(1, 102345);
+        lruCache.put(2, 102342);
+        lruCache.put(3, 102303);
+        lruCache.printCache();
+
+        // Access key 2 (this will make key 2 the most recently used)
+        System.out.println("Get 2: " + lruCache.get(2));
+        lruCache.printCache();
+
+        // Insert a new key, which will evict key 1 (the LRU)
+        lruCache.put(4, 105444);
+        lruCache.printCache();
+        System.out.println("Get 1: " + lruCache.get(1)); // -1
+
+        // Delete key 3 then insert two more to see the free slot reused
+        lruCache.delete(3);
+        lruCache.put(5, 103455);
+        lruCache.put(6, 103466);
+        lruCache.printCache();
+    }
+}
@@ -24,6 +24,13 @@ class LRUCache {
     private int capacity, size;
     private Node head, tail;
 
+    // Set when capacity was lowered below the current size, the excess is evicted a chunk at a time
+    private static final int EVICTION_CHUNK = 16;
+    private boolean shrinking;
+
+    // Hit/miss/eviction counters
+    private final CacheStats stats = new CacheStats();
+
 
 
     // Constructor
@@ -66,13 +73,18 @@ class LRUCache {
 
     // Get the value of a key if it exists in the cache
     public int get(int key) {
+        long start = stats.startTimer();
+        if (shrinking) evictExcess();
         // if key is not found then return false
-        if (!cache.containsKey(key)) return -1; 
-        
+        Node node = cache.get(key);
+        if (node == null) {
+            stats.recordGet(start, false);
+            return -1;
+        }
         
         // Move the accessed node to the front
-        Node node = cache.get(key);
         moveToFront(node);
+        stats.recordGet(start, true);
         return node.value;
     }
 
@@ -80,6 +92,8 @@ class LRUCache {
     //extra method from https://codefarm0.medium.com/lets-implement-an-lru-cache-in-java-step-by-step-e0ef505db9f9 its called medium just to let ya know
     // Insert a key-value pair into the cache
     public void put(int key, int value) {
+        long start = stats.startTimer();
+        if (shrinking) evictExcess();
         // if key exists, update value and move to front
         if (cache.containsKey(key)) {
             Node node = cache.get(key);
@@ -89,9 +103,7 @@ class LRUCache {
         // if key does not exist, insert new node    
         } else {
             if (cache.size() >= capacity) {
-                Node lru = tail.prev;
-                remove(lru);
-                cache.remove(lru.key);
+                evictLru();
             }
 
 
@@ -100,6 +112,59 @@ class LRUCache {
             addToFront(newNode);
             cache.put(key, newNode);
         }
+        stats.recordPut(start);
+    }
+
+
+
+    // Remove the least recently used node
+    private void evictLru() {
+        Node lru = tail.prev;
+        remove(lru);
+        cache.remove(lru.key);
+        stats.recordEviction();
+    }
+
+
+
+    // Change the capacity. Growing is immediate; when shrinking, the excess is evicted at most
+    // EVICTION_CHUNK entries per later get/put so there is no single long pause.
+    public void setCapacity(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        shrinking = cache.size() > capacity;
+    }
+
+
+
+    // Evict one bounded chunk of the entries left over capacity by a shrink
+    private void evictExcess() {
+        for (int i = 0; i < EVICTION_CHUNK && cache.size() > capacity; i++) {
+            evictLru();
+        }
+        shrinking = cache.size() > capacity;
+    }
+
+
+
+    // Counters for this cache, call stats().enableLatencyHistograms() for get/put latencies
+    public CacheStats stats() {
+        return stats;
+    }
+
+
+
+    // Snapshot of the counters with the current number of entries as the weight
+    public CacheStats.Snapshot statsSnapshot() {
+        return stats.snapshot(cache.size());
+    }
+
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return cache.size();
     }
 
 
@@ -158,5 +223,12 @@ class LRUCache {
         // Insert another new key, which will evict key 2 (the LRU)
         lruCache.put(5, 103455);
         lruCache.printCache();
+        System.out.println(lruCache.statsSnapshot());
+
+
+        // Shrink to 2: the extra entry goes on the next operation
+        lruCache.setCapacity(2);
+        lruCache.get(5);
+        lruCache.printCache();
         }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package CA2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR-style latency histogram in nanoseconds. Buckets are log-linear: every power of two is
+ * split into 16 equal sub-buckets, so any recorded value is off by at most about 6% while the
+ * whole long range fits in under a thousand counters. Recording is one atomic increment.
+ */
+public class LatencyHistogram {
+    // 4 sub-bucket bits = 16 sub-buckets per power of two
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+
+
+    // Bucket index for a value, values below 16 get a bucket each
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) Math.max(0, value);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) | (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+
+
+    // Smallest value that lands in the bucket
+    static long lowestValueAt(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = (index >> SUB_BITS) - 1;
+        return (long) (SUB_COUNT + (index & (SUB_COUNT - 1))) << shift;
+    }
+
+
+
+    // Record one latency in nanoseconds
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(nanos));
+    }
+
+
+
+    // Copy the counters into an immutable snapshot
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return new Snapshot(copy);
+    }
+
+
+
+    /** Point-in-time copy of a histogram that percentiles can be read from. */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long t = 0;
+            for (long c : counts) t += c;
+            this.total = t;
+        }
+
+        // Number of recorded values
+        public long count() {
+            return total;
+        }
+
+        // Value at the given percentile (0-100), as the lower edge of its bucket
+        public long percentile(double p) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, p)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(1, rank)) return lowestValueAt(i);
+            }
+            return lowestValueAt(counts.length - 1);
+        }
+
+        // Combine two snapshots, e.g. from the segments of a concurrent cache
+        public Snapshot plus(Snapshot other) {
+            long[] sum = new long[counts.length];
+            for (int i = 0; i < sum.length; i++) sum[i] = counts[i] + other.counts[i];
+            return new Snapshot(sum);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + total + " p50=" + percentile(50) + "ns p99=" + percentile(99)
+                + "ns p99.9=" + percentile(99.9) + "ns max=" + percentile(100) + "ns";
+        }
+    }
+}
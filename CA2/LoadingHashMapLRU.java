@@ -0,0 +1,495 @@
+package CA2;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe LRU cache that loads missing values itself. get(key, loader) runs the loader
+ * at most once per key at a time: concurrent misses for the same key wait on the one
+ * in-flight load instead of all hitting the backend. Entries older than refreshAfter are
+ * still returned, but trigger a reload in the background (refresh-ahead), and entries older
+ * than expireAfter are treated as a miss. A load never overwrites a put or delete of its key
+ * that happened while it was running.
+ */
+public class LoadingHashMapLRU {
+    class Node {
+        String key;
+        volatile String value;
+        volatile long loadedAt;
+        int version;   // bumped on every put, guarded by "this"
+        Node prev, next;
+        Node(String k, String v) { key = k; value = v; }
+    }
+
+
+    // LRU Cache properties, list and map are guarded by "this"
+    private final HashMap<String, Node> map;
+    private final int capacity;
+    private final Node head;
+    private final Node tail;
+
+    // Loads currently running, one future per key
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    // Keys put or deleted while a load of them was running, guarded by "this". Such a load
+    // returns its value but doesn't cache it
+    private final Set<String> writtenDuringLoad = new HashSet<>();
+
+    // Refresh/expiry properties in nanoseconds, 0 means disabled
+    private final long refreshAfterNanos;
+    private final long expireAfterNanos;
+    private final Executor executor;
+    private final LongSupplier ticker;
+
+    // Hit/miss/load counters
+    private final CacheStats stats = new CacheStats();
+
+
+
+    // Constructor for a loading cache with no refresh or expiry
+    public LoadingHashMapLRU(int capacity) {
+        this(capacity, 0, 0, TimeUnit.NANOSECONDS, ForkJoinPool.commonPool(), System::nanoTime);
+    }
+
+
+
+    // Constructor, refreshAfter should be shorter than expireAfter for refresh-ahead to help
+    public LoadingHashMapLRU(int capacity, long refreshAfter, long expireAfter, TimeUnit unit,
+                             Executor executor, LongSupplier ticker) {
+        this.capacity = capacity;
+        this.refreshAfterNanos = unit.toNanos(refreshAfter);
+        this.expireAfterNanos = unit.toNanos(expireAfter);
+        this.executor = executor;
+        this.ticker = ticker;
+        this.map = new HashMap<>();
+        head = new Node(null, null);
+        tail = new Node(null, null);
+        head.next = tail;
+        tail.prev = head;
+    }
+
+
+
+    // Add a node to the front of the list
+    private void addToFront(Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from the list
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // Move a node to the front (most recently used)
+    private void moveToFront(Node node) {
+        removeNode(node);
+        addToFront(node);
+    }
+
+
+
+    // Get a value, loading it with the loader on a miss (null if the loader returns null)
+    public String get(String key, Function<String, String> loader) {
+        if (key == null) return null;
+        long start = stats.startTimer();
+        long now = ticker.getAsLong();
+        Node hit = lookup(key, now);
+        stats.recordGet(start, hit != null);
+        if (hit != null) {
+            String value = hit.value;
+            if (refreshAfterNanos > 0 && now - hit.loadedAt >= refreshAfterNanos) {
+                // serve the old value and reload in the background
+                load(key, loader, hit);
+            }
+            return value;
+        }
+        return join(load(key, loader, null));
+    }
+
+
+
+    // Wait for a load, rethrowing the loader's own exception when it is unchecked
+    private static String join(CompletableFuture<String> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+
+
+    // Get a batch of values. Hits are collected under one lock, and every miss that isn't
+    // already being loaded by another thread goes to the batch loader in a single call.
+    // Keys the loader returns no value for are left out of the result.
+    public Map<String, String> getAll(Collection<String> keys, Function<Set<String>, Map<String, String>> batchLoader) {
+        Map<String, String> result = new LinkedHashMap<>();
+        Set<String> misses = new LinkedHashSet<>();
+        long now = ticker.getAsLong();
+        synchronized (this) {
+            for (String key : keys) {
+                if (key == null || result.containsKey(key) || misses.contains(key)) continue;
+                long start = stats.startTimer();
+                Node n = lookup(key, now);
+                stats.recordGet(start, n != null);
+                if (n != null) result.put(key, n.value);
+                else misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) return result;
+
+        // claim the misses nobody else is loading, join the loads that are already running
+        Map<String, CompletableFuture<String>> waiting = new LinkedHashMap<>();
+        Map<String, CompletableFuture<String>> mine = new LinkedHashMap<>();
+        for (String key : misses) {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            CompletableFuture<String> running = inFlight.putIfAbsent(key, f);
+            if (running != null) {
+                waiting.put(key, running);
+            } else {
+                mine.put(key, f);
+                waiting.put(key, f);
+            }
+        }
+
+        if (!mine.isEmpty()) {
+            startLoads(mine.keySet());
+            long start = System.nanoTime();
+            try {
+                Map<String, String> loaded = batchLoader.apply(mine.keySet());
+                stats.recordLoadSuccess(System.nanoTime() - start);
+                for (Map.Entry<String, CompletableFuture<String>> e : mine.entrySet()) {
+                    String value = loaded == null ? null : loaded.get(e.getKey());
+                    if (value != null) putIfUnwritten(e.getKey(), value);
+                    e.getValue().complete(value);
+                }
+            } catch (RuntimeException ex) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                for (CompletableFuture<String> f : mine.values()) f.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                for (Map.Entry<String, CompletableFuture<String>> e : mine.entrySet()) {
+                    inFlight.remove(e.getKey(), e.getValue());
+                }
+                endLoads(mine.keySet());
+            }
+        }
+
+        for (Map.Entry<String, CompletableFuture<String>> e : waiting.entrySet()) {
+            String value = join(e.getValue());
+            if (value != null) result.put(e.getKey(), value);
+        }
+        return result;
+    }
+
+
+
+    // Find a live entry and mark it most recently used, dropping it if it has expired
+    private synchronized Node lookup(String key, long now) {
+        Node n = map.get(key);
+        if (n == null) return null;
+        if (expireAfterNanos > 0 && now - n.loadedAt >= expireAfterNanos) {
+            map.remove(key);
+            removeNode(n);
+            return null;
+        }
+        moveToFront(n);
+        return n;
+    }
+
+
+
+    // Start a load for the key or join the one already running (single-flight). A non-null
+    // stale node makes this a background refresh of that entry
+    private CompletableFuture<String> load(String key, Function<String, String> loader, Node stale) {
+        boolean async = stale != null;
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) return running;
+        int version = async ? versionOf(stale) : 0;
+        if (!async) startLoads(Set.of(key));
+
+        Runnable task = () -> {
+            try {
+                // another load may have finished between our miss and winning the race
+                Node loaded = async ? null : lookup(key, ticker.getAsLong());
+                String value = loaded != null ? loaded.value : timedLoad(key, loader);
+                if (value != null && async) replaceIfUnchanged(key, stale, version, value);
+                else if (value != null && loaded == null) putIfUnwritten(key, value);
+                mine.complete(value);
+            } catch (Throwable t) {
+                mine.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, mine);
+                if (!async) endLoads(Set.of(key));
+            }
+        };
+        if (async) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // no refresh this time, the caller still gets the stale value and a later get
+                // tries again
+                inFlight.remove(key, mine);
+                mine.completeExceptionally(e);
+                stats.recordLoadFailure(0);
+            }
+        } else {
+            // the caller that won the race does the load on its own thread
+            task.run();
+        }
+        return mine;
+    }
+
+
+
+    // Call the loader and record how long it took
+    private String timedLoad(String key, Function<String, String> loader) {
+        long start = System.nanoTime();
+        try {
+            String value = loader.apply(key);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+
+
+    private synchronized int versionOf(Node n) {
+        return n.version;
+    }
+
+
+
+    // Forget earlier writes to keys whose load starts now, so only writes during it count
+    private synchronized void startLoads(Collection<String> keys) {
+        writtenDuringLoad.removeAll(keys);
+    }
+
+
+
+    private synchronized void endLoads(Collection<String> keys) {
+        writtenDuringLoad.removeAll(keys);
+    }
+
+
+
+    // Cache a value from a synchronous load unless the key was put or deleted since it started
+    private synchronized void putIfUnwritten(String key, String value) {
+        if (writtenDuringLoad.remove(key)) return;
+        insert(key, value);
+    }
+
+
+
+    // Remember a put or delete of a key that is being loaded right now
+    private void noteWrite(String key) {
+        if (inFlight.containsKey(key)) writtenDuringLoad.add(key);
+    }
+
+
+
+    // Install a refreshed value only if the entry is still cached and hasn't been written since
+    // the refresh started, so a delete or newer put isn't undone by a slow reload
+    private synchronized void replaceIfUnchanged(String key, Node stale, int version, String value) {
+        if (map.get(key) != stale || stale.version != version) return;
+        stale.value = value;
+        stale.version++;
+        stale.loadedAt = ticker.getAsLong();
+    }
+
+
+
+    // Insert or update a key-value pair
+    public synchronized void put(String key, String value) {
+        if (key == null) return;
+        noteWrite(key);
+        insert(key, value);
+    }
+
+
+
+    private synchronized void insert(String key, String value) {
+        long start = stats.startTimer();
+        long now = ticker.getAsLong();
+        Node n = map.get(key);
+        if (n != null) {
+            n.value = value;
+            n.version++;
+            n.loadedAt = now;
+            moveToFront(n);
+            stats.recordPut(start);
+            return;
+        }
+        // New key
+        if (map.size() >= capacity) {
+            // evict LRU
+            Node lru = tail.prev;
+            if (lru != head) {
+                removeNode(lru);
+                map.remove(lru.key);
+                stats.recordEviction();
+            }
+        }
+        // Insert new node
+        Node node = new Node(key, value);
+        node.loadedAt = now;
+        addToFront(node);
+        map.put(key, node);
+        stats.recordPut(start);
+    }
+
+
+
+    // Get the value of a key if it is cached, never loads
+    public String getIfPresent(String key) {
+        if (key == null) return null;
+        Node n = lookup(key, ticker.getAsLong());
+        return n == null ? null : n.value;
+    }
+
+
+
+    // Delete a key from the cache
+    public synchronized void delete(String key) {
+        noteWrite(key);
+        Node n = map.remove(key);
+        if (n == null) return;
+        removeNode(n);
+    }
+
+
+
+    // Number of entries currently cached
+    public synchronized int size() {
+        return map.size();
+    }
+
+
+
+    // Counters for this cache, call stats().enableLatencyHistograms() for get/put latencies
+    public CacheStats stats() {
+        return stats;
+    }
+
+
+
+    // Snapshot of the hit/miss/load counters with the current number of entries as the weight
+    public CacheStats.Snapshot statsSnapshot() {
+        return stats.snapshot(size());
+    }
+
+
+
+    // Print current cache state from most to least recently used
+    public synchronized void printCache() {
+        Node cur = head.next;
+        System.out.print("[MRU] ");
+        while (cur != tail) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+            cur = cur.next;
+        }
+        System.out.println(" [LRU]");
+    }
+
+
+
+    // Demo: ten threads miss on the same key but the backend is only called once
+    public static void main(String[] args) throws InterruptedException {
+        LoadingHashMapLRU cache = new LoadingHashMapLRU(20);
+        AtomicInteger backendCalls = new AtomicInteger();
+        Function<String, String> slowBackend = key -> {
+            backendCalls.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "value-of-" + key;
+        };
+
+        Thread[] threads = new Thread[10];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> cache.get("hot", slowBackend));
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        cache.printCache();
+        System.out.println("backend calls for 10 concurrent misses: " + backendCalls.get());
+        System.out.println(cache.statsSnapshot());
+
+        // bulk: the two misses reach the backend in a single batch call
+        System.out.println("getAll -> " + cache.getAll(Arrays.asList("hot", "a", "b", "hot"), missing -> {
+            System.out.println("batch loader called with " + missing);
+            Map<String, String> loaded = new HashMap<>();
+            for (String k : missing) loaded.put(k, "value-of-" + k);
+            return loaded;
+        }));
+
+        // refresh-ahead: old value served while the reload runs in the background
+        long[] clock = { 0 };
+        LoadingHashMapLRU refreshing = new LoadingHashMapLRU(20, 5, 10, TimeUnit.SECONDS, Runnable::run, () -> clock[0]);
+        int[] version = { 0 };
+        Function<String, String> versioned = key -> key + "-v" + (++version[0]);
+        System.out.println("t=0s  " + refreshing.get("a", versioned));
+        clock[0] += TimeUnit.SECONDS.toNanos(6);
+        System.out.println("t=6s  " + refreshing.get("a", versioned) + " (stale, refresh triggered)");
+        System.out.println("t=6s  " + refreshing.get("a", versioned));
+
+        // a refresh that finishes after a delete must not bring the key back
+        clock[0] += TimeUnit.SECONDS.toNanos(6);
+        Runnable[] pending = new Runnable[1];
+        LoadingHashMapLRU deferred = new LoadingHashMapLRU(20, 5, 10, TimeUnit.SECONDS, r -> pending[0] = r, () -> clock[0]);
+        deferred.put("a", "a-v1");
+        clock[0] += TimeUnit.SECONDS.toNanos(6);
+        deferred.get("a", versioned);
+        deferred.delete("a");
+        pending[0].run();
+        System.out.println("refresh after delete -> " + deferred.getIfPresent("a"));
+
+        // the same for a load on a miss: the delete lands while the loader runs
+        LoadingHashMapLRU racing = new LoadingHashMapLRU(20);
+        String loadedValue = racing.get("b", key -> {
+            racing.delete(key);
+            return "b-v1";
+        });
+        System.out.println("load returned " + loadedValue + ", cached after delete -> " + racing.getIfPresent("b"));
+
+        // a refresh the executor rejects still serves the stale value, and the next get retries
+        LoadingHashMapLRU rejecting = new LoadingHashMapLRU(20, 5, 10, TimeUnit.SECONDS,
+            r -> { throw new RejectedExecutionException("executor shut down"); }, () -> clock[0]);
+        rejecting.put("c", "c-v1");
+        clock[0] += TimeUnit.SECONDS.toNanos(6);
+        System.out.println("rejected refresh -> " + rejecting.get("c", versioned) + ", in flight " + rejecting.inFlight.size());
+    }
+}
@@ -0,0 +1,226 @@
+package CA2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * HashMapLRU that keeps its values off the Java heap. Each value is encoded as UTF-8 into a
+ * block from a SlabAllocator of direct ByteBuffers, and the node on the heap only holds the
+ * key plus a handle (slab, offset) and the length. get decodes the bytes back into a String
+ * only when it is asked for. Besides the entry count, the cache is limited by the off-heap
+ * budget: if a value doesn't fit, LRU entries are evicted and their blocks reused (merged with
+ * free neighbours by the allocator). One put evicts at most MAX_EVICTIONS entries for space; if
+ * that still doesn't free a big enough block the value is not cached.
+ */
+public class OffHeapHashMapLRU implements StringCache {
+    class Node {
+        String key;
+        long handle;   // slab number and offset of the value bytes
+        int length;    // number of UTF-8 bytes
+        Node prev, next;
+        Node(String k) { key = k; }
+    }
+
+
+    // Default slab size, each slab is one direct ByteBuffer
+    private static final int SLAB_SIZE = 1 << 20;
+
+    // Most entries one put may evict to make room for its value
+    private static final int MAX_EVICTIONS = 32;
+
+
+    // LRU Cache properties
+    private final HashMap<String, Node> map;
+    private final SlabAllocator allocator;
+    private final int capacity;
+    private final Node head;
+    private final Node tail;
+
+
+
+    // Constructor, maxOffHeapBytes caps how much direct memory the values may use
+    public OffHeapHashMapLRU(int capacity, long maxOffHeapBytes) {
+        this.capacity = capacity;
+        this.map = new HashMap<>();
+        this.allocator = new SlabAllocator((int) Math.min(SLAB_SIZE, Math.max(16, maxOffHeapBytes)), maxOffHeapBytes);
+        head = new Node(null);
+        tail = new Node(null);
+        head.next = tail;
+        tail.prev = head;
+    }
+
+
+
+    // Add a node to the front of the list
+    private void addToFront(Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from the list
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // Move a node to the front (most recently used)
+    private void moveToFront(Node node) {
+        removeNode(node);
+        addToFront(node);
+    }
+
+
+
+    // Remove an entry and give its block back to the allocator
+    private void evict(Node node) {
+        removeNode(node);
+        map.remove(node.key);
+        allocator.free(node.handle, node.length);
+    }
+
+
+
+    // Get off-heap space for the bytes, evicting a bounded number of LRU entries until it fits
+    // (-1 if it doesn't)
+    private long allocate(int length) {
+        // bigger than a slab, evicting wouldn't help
+        if (length > allocator.maxBlockSize()) return -1;
+        long h = allocator.allocate(length);
+        for (int evicted = 0; h < 0 && evicted < MAX_EVICTIONS && tail.prev != head; evicted++) {
+            evict(tail.prev);
+            h = allocator.allocate(length);
+        }
+        return h;
+    }
+
+
+
+    // Insert or update a key-value pair, a null value deletes the key
+    public void put(String key, String value) {
+        if (key == null) return;
+        if (value == null) {
+            delete(key);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        Node n = map.remove(key);
+        if (n != null) {
+            // release the old block first so the new value can reuse it
+            removeNode(n);
+            allocator.free(n.handle, n.length);
+        } else {
+            n = new Node(key);
+            if (map.size() >= capacity) {
+                // evict LRU
+                Node lru = tail.prev;
+                if (lru != head) evict(lru);
+            }
+        }
+
+        long h = allocate(bytes.length);
+        if (h < 0) return;   // no room even after evicting, not cached
+        allocator.write(h, bytes);
+        n.handle = h;
+        n.length = bytes.length;
+        addToFront(n);
+        map.put(key, n);
+    }
+
+
+
+    // Get the value of a key if it exists in the cache, decoded from off-heap memory
+    public String get(String key) {
+        Node n = map.get(key);
+        if (n == null) return null;
+        moveToFront(n);
+        return new String(allocator.read(n.handle, n.length), StandardCharsets.UTF_8);
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        Node n = map.get(key);
+        if (n == null) return;
+        evict(n);
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Off-heap bytes in use by values (rounded up to the allocator's size classes)
+    public long offHeapUsed() {
+        return allocator.usedBytes();
+    }
+
+
+
+    // Off-heap bytes reserved from the OS
+    public long offHeapReserved() {
+        return allocator.reservedBytes();
+    }
+
+
+
+    // Print current cache state from most to least recently used
+    public void printCache() {
+        Node cur = head.next;
+        System.out.print("[MRU] ");
+        while (cur != tail) {
+            System.out.print(cur.key + ":" + new String(allocator.read(cur.handle, cur.length), StandardCharsets.UTF_8) + " ");
+            cur = cur.next;
+        }
+        System.out.println(" [LRU]");
+    }
+
+
+
+    // Demo
+    public static void main(String[] args) {
+        OffHeapHashMapLRU cache = new OffHeapHashMapLRU(20, 512);
+        cache.put("1", "ryan");
+        cache.put("2", "julia");
+        cache.put("3", "shauna");
+        cache.put("4", "Siobh\u00e1n");   // non-ASCII survives the UTF-8 round trip
+        cache.printCache();
+        System.out.println("get 4 -> " + cache.get("4"));
+        System.out.println("off-heap used " + cache.offHeapUsed() + " of " + cache.offHeapReserved() + " reserved");
+
+        // a 100 byte value takes a 128 byte block
+        cache.put("big", "x".repeat(100));
+        cache.put("big2", "y".repeat(100));
+        System.out.println("off-heap used " + cache.offHeapUsed() + " of " + cache.offHeapReserved() + " reserved");
+
+        // deleting frees the block for the next value of the same size class
+        cache.delete("big");
+        cache.put("5", "z".repeat(90));
+        System.out.println("size " + cache.size() + ", off-heap used " + cache.offHeapUsed());
+
+        // the budget is full now, so a 200 byte value pushes LRU entries out until freed
+        // neighbours merge into a 256 byte block
+        cache.put("huge", "h".repeat(200));
+        System.out.println("size " + cache.size() + ", off-heap used " + cache.offHeapUsed() + " of " + cache.offHeapReserved());
+
+        // small values leave room for a bigger one once two neighbouring blocks are freed
+        OffHeapHashMapLRU small = new OffHeapHashMapLRU(1000, 4096);
+        for (int i = 0; i < 256; i++) small.put("k" + i, String.format("%010d", i));
+        small.put("wide", "w".repeat(20));
+        System.out.println("4 KB of 10 byte values, after one 20 byte put: size " + small.size()
+            + ", reserved " + small.offHeapReserved());
+    }
+}
@@ -0,0 +1,13 @@
+package CA2;
+
+/**
+ * Why an entry left a cache.
+ */
+public enum RemovalCause {
+    // removed by delete
+    EXPLICIT,
+    // value overwritten by a put for the same key
+    REPLACED,
+    // evicted to stay within the capacity or weight limit
+    SIZE
+}
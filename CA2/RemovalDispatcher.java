@@ -0,0 +1,205 @@
+package CA2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers removal events to a RemovalListener off the cache's write path. The cache only
+ * adds an event to a bounded queue; a drain task on the executor takes events off in
+ * batches and hands them to the listener. When the queue is full the backpressure policy
+ * decides whether the writer blocks, runs the listener itself, or an event is dropped.
+ * Batches are handed over one at a time under a delivery lock, so the listener sees events in
+ * the order they were queued, also when CALLER_RUNS delivers on the writer's thread. A listener
+ * that throws is reported to the failure handler (logged by default) and counted. If the
+ * executor won't take the drain task, the events are delivered on the calling thread instead,
+ * so a broken executor never makes the cache's put or delete throw.
+ */
+public class RemovalDispatcher {
+    /** What to do when the queue is full. */
+    public enum Backpressure {
+        // wait for space, no event is ever lost
+        BLOCK,
+        // deliver the queued events and then this one on the calling thread
+        CALLER_RUNS,
+        // throw away the event being added
+        DROP_NEWEST,
+        // throw away the oldest queued event to make room
+        DROP_OLDEST
+    }
+
+
+    // Dispatcher properties
+    private final RemovalListener listener;
+    private final ArrayBlockingQueue<RemovalListener.RemovalNotification> queue;
+    private final Executor executor;
+    private final int batchSize;
+    private final Backpressure backpressure;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private volatile BiConsumer<List<RemovalListener.RemovalNotification>, RuntimeException> failureHandler =
+        (batch, e) -> Logger.getLogger(RemovalDispatcher.class.getName())
+            .log(Level.WARNING, "removal listener failed on " + batch.size() + " events", e);
+
+
+
+    // Constructor
+    public RemovalDispatcher(RemovalListener listener, int queueCapacity, int batchSize,
+                             Backpressure backpressure, Executor executor) {
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.backpressure = backpressure;
+        this.executor = executor;
+    }
+
+
+
+    // Queue one removal, called by the cache while it still holds its own lock
+    public void notify(String key, String value, RemovalCause cause) {
+        RemovalListener.RemovalNotification n = new RemovalListener.RemovalNotification(key, value, cause);
+        if (!queue.offer(n)) {
+            switch (backpressure) {
+                case BLOCK:
+                    scheduleDrain();
+                    try {
+                        queue.put(n);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.increment();
+                    }
+                    break;
+                case CALLER_RUNS:
+                    callerRuns(n);
+                    break;
+                case DROP_NEWEST:
+                    dropped.increment();
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(n)) {
+                        if (queue.poll() != null) dropped.increment();
+                    }
+                    break;
+            }
+        }
+        scheduleDrain();
+    }
+
+
+
+    // Make sure one drain task is queued on the executor. If the executor rejects it (or throws
+    // anything else) the drain runs here instead, which also clears the flag for the next event
+    private void scheduleDrain() {
+        if (!queue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                rejections.increment();
+                drain();
+            }
+        }
+    }
+
+
+
+    // Queue is full: deliver everything already queued on this thread, then the new event
+    private void callerRuns(RemovalListener.RemovalNotification n) {
+        ArrayList<RemovalListener.RemovalNotification> batch = new ArrayList<>(batchSize);
+        deliveryLock.lock();
+        try {
+            while (drainBatch(batch)) batch.clear();
+            batch.add(n);
+            deliver(batch);
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+
+
+
+    // Hand queued events to the listener batch by batch until the queue is empty
+    private void drain() {
+        ArrayList<RemovalListener.RemovalNotification> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean delivered;
+            deliveryLock.lock();
+            try {
+                delivered = drainBatch(batch);
+            } finally {
+                deliveryLock.unlock();
+            }
+            batch.clear();
+            if (!delivered) {
+                drainScheduled.set(false);
+                // an event may have arrived after drainTo but before the flag was cleared
+                if (queue.isEmpty() || !drainScheduled.compareAndSet(false, true)) return;
+            }
+        }
+    }
+
+
+
+    // Take one batch off the queue and deliver it, must hold the delivery lock. Taking and
+    // delivering under one lock is what keeps batches in queue order
+    private boolean drainBatch(ArrayList<RemovalListener.RemovalNotification> batch) {
+        queue.drainTo(batch, batchSize);
+        if (batch.isEmpty()) return false;
+        deliver(batch);
+        return true;
+    }
+
+
+
+    // Call the listener, a failing listener must not kill the drain task
+    private void deliver(ArrayList<RemovalListener.RemovalNotification> batch) {
+        try {
+            listener.onRemovals(batch);
+        } catch (RuntimeException e) {
+            failures.increment();
+            try {
+                failureHandler.accept(batch, e);
+            } catch (RuntimeException ignored) {
+                // a broken handler must not kill the drain task either
+            }
+        }
+    }
+
+
+
+    // Where listener failures go instead of the default log, it gets the failed batch (only
+    // valid during the call) and the exception
+    public void setFailureHandler(BiConsumer<List<RemovalListener.RemovalNotification>, RuntimeException> handler) {
+        this.failureHandler = handler;
+    }
+
+
+
+    // Batches the listener threw on
+    public long failureCount() {
+        return failures.sum();
+    }
+
+
+
+    // Drain tasks the executor refused, delivered on the calling thread instead
+    public long rejectedCount() {
+        return rejections.sum();
+    }
+
+
+
+    // Events lost to DROP_NEWEST / DROP_OLDEST (or an interrupted BLOCK)
+    public long droppedCount() {
+        return dropped.sum();
+    }
+}
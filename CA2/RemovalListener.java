@@ -0,0 +1,32 @@
+package CA2;
+
+import java.util.List;
+
+/**
+ * Receives removed cache entries in batches, on a background thread of the RemovalDispatcher.
+ */
+@FunctionalInterface
+public interface RemovalListener {
+    /** One removed entry. */
+    final class RemovalNotification {
+        public final String key;
+        public final String value;
+        public final RemovalCause cause;
+
+        public RemovalNotification(String key, String value, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
+        }
+
+        @Override
+        public String toString() {
+            return key + ":" + value + " (" + cause + ")";
+        }
+    }
+
+
+    // Called with up to the dispatcher's batch size of removals, in the order they were queued,
+    // one batch at a time. The list is reused once this returns, copy it to keep it
+    void onRemovals(List<RemovalNotification> batch);
+}
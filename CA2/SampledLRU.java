@@ -0,0 +1,279 @@
+package CA2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate LRU without a linked list, the way Redis does it. Each entry is a slot in an
+ * open-addressing table holding hash, key, value and a last-access stamp; a hit only updates
+ * the stamp, nothing is relinked. To evict, K random occupied slots are sampled and offered to a
+ * small pool of the oldest candidates seen so far, and the oldest entry in the pool is evicted.
+ * The pool carries good candidates over from one eviction to the next, so even K=5 gets close
+ * to true LRU.
+ *
+ * The stamp is an int from a per-cache operation counter rather than wall-clock time, so
+ * accesses within the same millisecond still order correctly; ages are compared with wrapping
+ * subtraction so the counter can overflow. Per entry this is 16 bytes a slot times about 1.33
+ * slots, against about 27 for CompactHashMapLRU and 80 for HashMapLRU.
+ */
+public class SampledLRU implements StringCache {
+    private static final double LOAD_FACTOR = 0.75;
+    private static final int DEFAULT_SAMPLES = 5;
+    private static final int POOL_SIZE = 16;
+
+
+    // Slot storage, an empty slot has a null key
+    private final int[] hashes;
+    private final String[] keys;
+    private final String[] values;
+    private final int[] stamps;
+
+    // Eviction pool, sorted youngest first so the oldest candidate is at poolSize - 1
+    private final String[] poolKeys = new String[POOL_SIZE];
+    private final int[] poolStamps = new int[POOL_SIZE];
+    private int poolSize;
+
+    // Cache properties
+    private final int capacity;
+    private final int tableSize;
+    private final int samples;
+    private final SplittableRandom random = new SplittableRandom();
+    private int size;
+    private int clock;
+
+
+
+    // Constructor, 5 samples per eviction like Redis' default
+    public SampledLRU(int capacity) {
+        this(capacity, DEFAULT_SAMPLES);
+    }
+
+
+
+    // Constructor with the number of entries sampled per eviction
+    public SampledLRU(int capacity, int samples) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        if (samples < 1) throw new IllegalArgumentException("samples must be at least 1");
+        this.capacity = capacity;
+        this.samples = samples;
+        this.tableSize = (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(capacity / LOAD_FACTOR) + 1);
+        hashes = new int[tableSize];
+        keys = new String[tableSize];
+        values = new String[tableSize];
+        stamps = new int[tableSize];
+    }
+
+
+
+    // Scramble hashCode so keys differing only in their low bits still differ in the high bits
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+
+    // Home slot of a hash, multiply-shift maps the high bits onto any table size without a division
+    private int home(int h) {
+        return (int) (((h & 0xFFFFFFFFL) * tableSize) >>> 32);
+    }
+
+
+
+    private int nextSlot(int slot) {
+        return slot + 1 == tableSize ? 0 : slot + 1;
+    }
+
+
+
+    // Probe distance from slot a forward to slot b
+    private int distance(int a, int b) {
+        return b >= a ? b - a : b + tableSize - a;
+    }
+
+
+
+    // Slot holding key, or -(slot + 1) for the empty slot where it would go
+    private int find(String key, int h) {
+        int slot = home(h);
+        while (keys[slot] != null) {
+            if (hashes[slot] == h && keys[slot].equals(key)) return slot;
+            slot = nextSlot(slot);
+        }
+        return -(slot + 1);
+    }
+
+
+
+    // Clear a slot, shifting the rest of its probe run back (no tombstones)
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int cur = nextSlot(slot);
+        while (keys[cur] != null) {
+            // move the entry into the gap if its home is not between the gap and cur
+            if (distance(home(hashes[cur]), cur) >= distance(gap, cur)) {
+                hashes[gap] = hashes[cur];
+                keys[gap] = keys[cur];
+                values[gap] = values[cur];
+                stamps[gap] = stamps[cur];
+                gap = cur;
+            }
+            cur = nextSlot(cur);
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        size--;
+    }
+
+
+
+    // Age of a stamp, wrapping subtraction keeps this right when the clock overflows
+    private int age(int stamp) {
+        return clock - stamp;
+    }
+
+
+
+    // Get the value of a key if it exists in the cache, a hit only refreshes the stamp
+    public String get(String key) {
+        if (key == null) return null;
+        int slot = find(key, hash(key));
+        if (slot < 0) return null;
+        stamps[slot] = ++clock;
+        return values[slot];
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        int h = hash(key);
+        int slot = find(key, h);
+        if (slot >= 0) {
+            values[slot] = value;
+            stamps[slot] = ++clock;
+            return;
+        }
+        if (size >= capacity) {
+            evict();
+            // the backward shift may have moved the run, so look for the free slot again
+            slot = find(key, h);
+        }
+        slot = -(slot + 1);
+        hashes[slot] = h;
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = ++clock;
+        size++;
+    }
+
+
+
+    // Sample into the pool, then evict the oldest pool entry that is still current
+    private void evict() {
+        while (true) {
+            fillPool();
+            while (poolSize > 0) {
+                poolSize--;
+                String key = poolKeys[poolSize];
+                int stamp = poolStamps[poolSize];
+                poolKeys[poolSize] = null;
+                int slot = find(key, hash(key));
+                // skip candidates deleted or used again since they were sampled
+                if (slot >= 0 && stamps[slot] == stamp) {
+                    removeSlot(slot);
+                    return;
+                }
+            }
+        }
+    }
+
+
+
+    // Offer K random occupied slots to the pool, keeping only the oldest POOL_SIZE candidates
+    private void fillPool() {
+        for (int i = 0; i < samples; i++) {
+            // first occupied slot from a random start, the table is never empty when evicting
+            int slot = random.nextInt(tableSize);
+            while (keys[slot] == null) slot = nextSlot(slot);
+            offer(keys[slot], stamps[slot]);
+        }
+    }
+
+
+
+    // Insertion into the sorted pool, youngest at 0 and oldest at poolSize - 1
+    private void offer(String key, int stamp) {
+        int a = age(stamp);
+        for (int i = 0; i < poolSize; i++) {
+            if (poolKeys[i].equals(key)) return;
+        }
+        int pos = 0;
+        while (pos < poolSize && age(poolStamps[pos]) < a) pos++;
+        if (poolSize == POOL_SIZE) {
+            // full: drop the youngest candidate, unless this one is younger still
+            if (pos == 0) return;
+            System.arraycopy(poolKeys, 1, poolKeys, 0, pos - 1);
+            System.arraycopy(poolStamps, 1, poolStamps, 0, pos - 1);
+            pos--;
+        } else {
+            System.arraycopy(poolKeys, pos, poolKeys, pos + 1, poolSize - pos);
+            System.arraycopy(poolStamps, pos, poolStamps, pos + 1, poolSize - pos);
+            poolSize++;
+        }
+        poolKeys[pos] = key;
+        poolStamps[pos] = stamp;
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        if (key == null) return;
+        int slot = find(key, hash(key));
+        if (slot >= 0) removeSlot(slot);
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return size;
+    }
+
+
+
+    // Print the entries in table order with how many operations ago each was used
+    public void printCache() {
+        for (int i = 0; i < tableSize; i++) {
+            if (keys[i] != null) System.out.print(keys[i] + ":" + values[i] + "(" + age(stamps[i]) + ") ");
+        }
+        System.out.println();
+    }
+
+
+
+    // Demo: hit ratio against exact LRU on a skewed trace
+    public static void main(String[] args) throws IOException {
+        SampledLRU cache = new SampledLRU(3);
+        cache.put("1", "ryan");
+        cache.put("2", "julia");
+        cache.put("3", "shauna");
+        cache.get("1");
+        cache.get("3");
+        cache.put("4", "aoife");   // evicts the oldest entry sampled, almost certainly 2
+        cache.printCache();
+
+        Path trace = CacheSimulator.syntheticTrace(200_000, 5_000);
+        for (int capacity : new int[] { 100, 500, 2000 }) {
+            for (CachePolicy policy : new CachePolicy[] { CachePolicy.LRU, CachePolicy.SAMPLED_LRU }) {
+                CacheSimulator.Result r = CacheSimulator.run(trace, TraceReader.Format.TEXT, policy, capacity);
+                System.out.printf("%-12s capacity %5d hit ratio %.2f%%%n", policy, capacity, 100 * r.hitRatio());
+            }
+        }
+        Files.delete(trace);
+    }
+}
@@ -0,0 +1,208 @@
+package CA2;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Hands out blocks of direct (off-heap) memory for cache values. Memory is grabbed from the
+ * OS in power-of-two slabs, and each slab is managed as a buddy system: blocks come in
+ * power-of-two size classes from 16 bytes upward. A request with no free block of its own
+ * class splits the smallest larger free block in halves until one fits. A freed block merges
+ * with its buddy (the other half of the block it was split from) whenever that is free too,
+ * so the space given back by small values can be reused for bigger ones. A block is
+ * identified by a handle packing the slab number and the offset into that slab. Slabs are
+ * kept once reserved, so reservedBytes never goes above maxBytes. Not thread-safe, the owning
+ * cache does the locking.
+ */
+public class SlabAllocator {
+    // Smallest block is 16 bytes (size class 0)
+    private static final int MIN_SHIFT = 4;
+    private static final int CLASSES = 31 - MIN_SHIFT;
+
+
+    // Simple growable stack of longs so free lists don't box their handles
+    private static final class LongStack {
+        long[] items = new long[16];
+        int size;
+
+        void push(long v) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = v;
+        }
+
+        long pop() { return items[--size]; }
+
+        boolean isEmpty() { return size == 0; }
+    }
+
+
+    // Allocator properties
+    private final int slabSize;
+    private final long maxBytes;
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+    // Per slab, one byte per 16-byte unit: size class + 1 where a free block starts, else 0.
+    // Free lists may hold stale handles of blocks since merged away, the mark tells them apart
+    private final ArrayList<byte[]> freeMarks = new ArrayList<>();
+    private final LongStack[] freeLists = new LongStack[CLASSES];
+    private long reservedBytes;   // bytes taken from the OS so far
+    private long usedBytes;       // bytes in blocks currently handed out
+
+
+
+    // Constructor, maxBytes caps the total direct memory the allocator may reserve. The slab
+    // size is rounded down to a power of two
+    public SlabAllocator(int slabSize, long maxBytes) {
+        this.slabSize = Integer.highestOneBit(Math.max(1 << MIN_SHIFT, slabSize));
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < CLASSES; i++) freeLists[i] = new LongStack();
+    }
+
+
+
+    // Size class for a length: 0 = 16 bytes, 1 = 32 bytes and so on
+    static int sizeClass(int length) {
+        int size = Math.max(length, 1 << MIN_SHIFT);
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+
+
+    // Block size in bytes for a size class
+    static int classSize(int sizeClass) {
+        return 1 << (sizeClass + MIN_SHIFT);
+    }
+
+
+
+    // Largest length allocate can hand out
+    public int maxBlockSize() {
+        return slabSize;
+    }
+
+
+
+    // Pack slab number and offset into one handle
+    static long handle(int slab, int offset) {
+        return ((long) slab << 32) | (offset & 0xffffffffL);
+    }
+
+    static int slabOf(long handle) { return (int) (handle >>> 32); }
+
+    static int offsetOf(long handle) { return (int) handle; }
+
+
+
+    // Get a block of at least length bytes, or -1 if no free block is big enough and the
+    // memory budget is used up, or the length is bigger than a slab and can never fit
+    public long allocate(int length) {
+        if (length > slabSize) return -1;
+        int c = sizeClass(length);
+        for (int k = c; k < CLASSES; k++) {
+            long h = popFree(k);
+            if (h >= 0) {
+                split(h, k, c);
+                usedBytes += classSize(c);
+                return h;
+            }
+        }
+
+        // nothing free is big enough, reserve a new slab. The last one may be smaller than
+        // slabSize to use up the budget
+        long remaining = maxBytes - reservedBytes;
+        if (remaining < classSize(c)) return -1;
+        int size = (int) Math.max(classSize(c), Math.min(slabSize, Long.highestOneBit(remaining)));
+        slabs.add(ByteBuffer.allocateDirect(size));
+        freeMarks.add(new byte[size >> MIN_SHIFT]);
+        reservedBytes += size;
+        long h = handle(slabs.size() - 1, 0);
+        split(h, sizeClass(size), c);
+        usedBytes += classSize(c);
+        return h;
+    }
+
+
+
+    // Halve a free block of class from until it is class to, freeing the upper halves
+    private void split(long handle, int from, int to) {
+        while (from > to) {
+            from--;
+            pushFree(handle(slabOf(handle), offsetOf(handle) + classSize(from)), from);
+        }
+    }
+
+
+
+    private void pushFree(long handle, int sizeClass) {
+        freeMarks.get(slabOf(handle))[offsetOf(handle) >> MIN_SHIFT] = (byte) (sizeClass + 1);
+        freeLists[sizeClass].push(handle);
+    }
+
+
+
+    // Take a free block of the class, skipping handles whose block was merged into a bigger one
+    private long popFree(int sizeClass) {
+        LongStack free = freeLists[sizeClass];
+        while (!free.isEmpty()) {
+            long h = free.pop();
+            byte[] marks = freeMarks.get(slabOf(h));
+            int unit = offsetOf(h) >> MIN_SHIFT;
+            if (marks[unit] == sizeClass + 1) {
+                marks[unit] = 0;
+                return h;
+            }
+        }
+        return -1;
+    }
+
+
+
+    // Give a block back, merging it with its buddy as long as the buddy is free too
+    public void free(long handle, int length) {
+        int c = sizeClass(length);
+        usedBytes -= classSize(c);
+        int slab = slabOf(handle);
+        int offset = offsetOf(handle);
+        byte[] marks = freeMarks.get(slab);
+        int top = sizeClass(slabs.get(slab).capacity());
+        while (c < top) {
+            int buddy = offset ^ classSize(c);
+            if (marks[buddy >> MIN_SHIFT] != c + 1) break;
+            // the buddy's free list entry goes stale, popFree skips it
+            marks[buddy >> MIN_SHIFT] = 0;
+            offset = Math.min(offset, buddy);
+            c++;
+        }
+        pushFree(handle(slab, offset), c);
+    }
+
+
+
+    // Copy bytes into a block
+    public void write(long handle, byte[] src) {
+        slabs.get(slabOf(handle)).put(offsetOf(handle), src);
+    }
+
+
+
+    // Copy length bytes out of a block
+    public byte[] read(long handle, int length) {
+        byte[] dst = new byte[length];
+        slabs.get(slabOf(handle)).get(offsetOf(handle), dst);
+        return dst;
+    }
+
+
+
+    // Direct memory reserved from the OS
+    public long reservedBytes() {
+        return reservedBytes;
+    }
+
+
+
+    // Bytes in blocks currently in use (rounded up to the size classes)
+    public long usedBytes() {
+        return usedBytes;
+    }
+}
@@ -0,0 +1,182 @@
+package CA2;
+
+import java.util.HashMap;
+
+/**
+ * Segmented LRU. New keys enter a probationary LRU segment; a second access promotes the
+ * entry to the protected segment. When protected is full its LRU entry is demoted back to
+ * the front of probation instead of being dropped, and evictions always come from the end of
+ * probation. Keys touched only once (a scan) never get past probation, so they can't push out
+ * the entries that are used repeatedly.
+ */
+public class SlruCache implements StringCache {
+    class Node {
+        String key;
+        String value;
+        boolean isProtected;
+        Node prev, next;
+        Node(String k, String v) { key = k; value = v; }
+    }
+
+
+    // LRU Cache properties
+    private final HashMap<String, Node> map;
+    private final int capacity;
+    private final int protectedCapacity;
+    private int protectedSize;
+    private final Node probationHead, probationTail;
+    private final Node protectedHead, protectedTail;
+
+
+
+    // Constructor, 80% of the capacity is the protected segment
+    public SlruCache(int capacity) {
+        this(capacity, 0.8);
+    }
+
+
+
+    // Constructor with an explicit share of the capacity for the protected segment
+    public SlruCache(int capacity, double protectedRatio) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        this.protectedCapacity = (int) Math.min(capacity - 1, Math.max(0, capacity * protectedRatio));
+        this.map = new HashMap<>();
+        probationHead = new Node(null, null);
+        probationTail = new Node(null, null);
+        probationHead.next = probationTail;
+        probationTail.prev = probationHead;
+        protectedHead = new Node(null, null);
+        protectedTail = new Node(null, null);
+        protectedHead.next = protectedTail;
+        protectedTail.prev = protectedHead;
+    }
+
+
+
+    // Add a node to the front of the given list
+    private void addToFront(Node head, Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from whichever list it is in
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // A hit: protected entries move to the front, probation entries get promoted
+    private void onHit(Node n) {
+        removeNode(n);
+        if (!n.isProtected) {
+            if (protectedCapacity == 0) {
+                // no protected segment (capacity 1), plain LRU
+                addToFront(probationHead, n);
+                return;
+            }
+            if (protectedSize >= protectedCapacity) {
+                // protected is full, its LRU entry goes back to probation
+                Node demoted = protectedTail.prev;
+                removeNode(demoted);
+                demoted.isProtected = false;
+                protectedSize--;
+                addToFront(probationHead, demoted);
+            }
+            n.isProtected = true;
+            protectedSize++;
+        }
+        addToFront(protectedHead, n);
+    }
+
+
+
+    // Get the value of a key if it exists in the cache
+    public String get(String key) {
+        if (key == null) return null;
+        Node n = map.get(key);
+        if (n == null) return null;
+        onHit(n);
+        return n.value;
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        Node n = map.get(key);
+        if (n != null) {
+            n.value = value;
+            onHit(n);
+            return;
+        }
+        if (map.size() >= capacity) {
+            // evict from the end of probation, or protected if probation is empty
+            Node lru = probationTail.prev != probationHead ? probationTail.prev : protectedTail.prev;
+            removeNode(lru);
+            map.remove(lru.key);
+            if (lru.isProtected) protectedSize--;
+        }
+        Node node = new Node(key, value);
+        addToFront(probationHead, node);
+        map.put(key, node);
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        Node n = map.remove(key);
+        if (n == null) return;
+        removeNode(n);
+        if (n.isProtected) protectedSize--;
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Print both segments from most to least recently used
+    public void printCache() {
+        System.out.print("protected [MRU] ");
+        for (Node cur = protectedHead.next; cur != protectedTail; cur = cur.next) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+        }
+        System.out.print(" [LRU]  probation [MRU] ");
+        for (Node cur = probationHead.next; cur != probationTail; cur = cur.next) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+        }
+        System.out.println(" [LRU]");
+    }
+
+
+
+    // Demo
+    public static void main(String[] args) {
+        SlruCache cache = new SlruCache(5);
+        cache.put("1", "ryan");
+        cache.put("2", "julia");
+        cache.put("3", "shauna");
+        cache.get("1");
+        cache.get("2");
+        cache.printCache();
+
+        // a scan only churns probation, 1 and 2 stay protected
+        for (int i = 10; i < 20; i++) cache.put(String.valueOf(i), "scan");
+        cache.printCache();
+    }
+}
@@ -0,0 +1,22 @@
+package CA2;
+
+/**
+ * The put/get/delete operations every String-keyed cache in this package supports, so an
+ * eviction policy can be swapped without touching the code that uses the cache.
+ */
+public interface StringCache {
+    // Insert or update a key-value pair
+    void put(String key, String value);
+
+    // Value for the key, or null if it isn't cached
+    String get(String key);
+
+    // Remove the key if it is cached
+    void delete(String key);
+
+    // Number of entries currently cached
+    int size();
+
+    // Print the cache contents for debugging
+    void printCache();
+}
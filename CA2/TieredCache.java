@@ -0,0 +1,191 @@
+package CA2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier cache: a HashMapLRU on the heap in front of a DiskLogStore. Entries the heap tier
+ * evicts for size are demoted to disk instead of being lost, and a get that misses the heap
+ * but finds the key on disk promotes it back (which may demote something else). A key is only
+ * ever in one tier at a time. Demotion uses the heap tier's removal hook with a dispatcher
+ * that runs on the calling thread, so an evicted entry is on disk before put returns. If the
+ * disk write fails the entry is lost: the failure is counted (demotionFailures) and thrown from
+ * the put or get that caused the eviction.
+ */
+public class TieredCache implements StringCache, AutoCloseable {
+    // Cache properties, both tiers are guarded by "this"
+    private final HashMapLRU memory;
+    private final DiskLogStore disk;
+    private final ExecutorService compactor;
+    private long memoryHits, diskHits, misses;
+    private long demotionFailures;
+    // Set by demote, thrown by the operation that triggered the eviction
+    private RuntimeException demotionFailure;
+
+
+
+    // Constructor, memoryCapacity entries on the heap and up to maxDiskBytes of records in dir
+    public TieredCache(int memoryCapacity, Path dir, long maxDiskBytes) throws IOException {
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "disk-tier-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.disk = new DiskLogStore(dir, maxDiskBytes, compactor);
+        this.memory = new HashMapLRU(memoryCapacity);
+        // Runnable::run delivers each removal synchronously inside the evicting put
+        memory.setRemovalDispatcher(new RemovalDispatcher(this::demote, 16, 16,
+            RemovalDispatcher.Backpressure.CALLER_RUNS, Runnable::run));
+    }
+
+
+
+    // Write size evictions from the heap tier to disk. A failure is not thrown from here, the
+    // dispatcher would only log it; it is kept for the evicting operation to throw
+    private void demote(List<RemovalListener.RemovalNotification> batch) {
+        for (RemovalListener.RemovalNotification n : batch) {
+            if (n.cause != RemovalCause.SIZE || n.value == null) continue;
+            try {
+                disk.put(n.key, n.value);
+            } catch (RuntimeException e) {
+                demotionFailures++;
+                if (demotionFailure == null) demotionFailure = e;
+                else demotionFailure.addSuppressed(e);
+            }
+        }
+    }
+
+
+
+    // Throw a demotion failure recorded during the current operation
+    private void throwIfDemotionFailed() {
+        RuntimeException e = demotionFailure;
+        if (e == null) return;
+        demotionFailure = null;
+        throw e;
+    }
+
+
+
+    // Get the value from the heap tier, or from disk (promoting it) if it was demoted
+    public synchronized String get(String key) {
+        if (key == null) return null;
+        String value = memory.get(key);
+        if (value != null) {
+            memoryHits++;
+            return value;
+        }
+        value = disk.get(key);
+        if (value == null) {
+            misses++;
+            return null;
+        }
+        diskHits++;
+        disk.remove(key);
+        memory.put(key, value);
+        throwIfDemotionFailed();
+        return value;
+    }
+
+
+
+    // Insert or update a key-value pair, always into the heap tier
+    public synchronized void put(String key, String value) {
+        if (key == null) return;
+        disk.remove(key);
+        memory.put(key, value);
+        throwIfDemotionFailed();
+    }
+
+
+
+    // Delete a key from both tiers
+    public synchronized void delete(String key) {
+        memory.delete(key);
+        disk.remove(key);
+    }
+
+
+
+    // Number of entries in both tiers
+    public synchronized int size() {
+        return memory.size() + disk.size();
+    }
+
+
+
+    public synchronized int memorySize() {
+        return memory.size();
+    }
+
+
+
+    public synchronized int diskSize() {
+        return disk.size();
+    }
+
+
+
+    // Evicted entries lost because writing them to disk failed
+    public synchronized long demotionFailures() {
+        return demotionFailures;
+    }
+
+
+
+    // Print the heap tier and the hit counts per tier
+    public synchronized void printCache() {
+        memory.printCache();
+        System.out.println("disk: " + disk.size() + " entries, " + disk.liveBytes() + " live of "
+            + disk.logBytes() + " log bytes | hits memory=" + memoryHits + " disk=" + diskHits
+            + " misses=" + misses + " | failed demotions=" + demotionFailures
+            + " failed compactions=" + disk.compactionFailures());
+    }
+
+
+
+    // Stop compaction and delete the disk tier
+    @Override
+    public synchronized void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        disk.close();
+    }
+
+
+
+    // Demo
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("tiered");
+        try (TieredCache cache = new TieredCache(3, dir, 1 << 20)) {
+            cache.put("1", "ryan");
+            cache.put("2", "julia");
+            cache.put("3", "shauna");
+            cache.put("4", "aoife");
+            cache.put("5", "siobhan");
+            // 1 and 2 were demoted to disk
+            cache.printCache();
+
+            // a disk hit brings 1 back to memory and pushes 3 out to disk
+            System.out.println("get 1 = " + cache.get("1"));
+            cache.printCache();
+
+            // churn through enough overwrites to trigger a compaction of the log
+            for (int round = 0; round < 40; round++) {
+                for (int i = 0; i < 500; i++) cache.put("k" + i, "round " + round + " " + "x".repeat(64));
+            }
+            cache.printCache();
+            System.out.println("get k7 = " + cache.get("k7"));
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,161 @@
+package CA2;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel used to expire cache entries without scanning the whole cache.
+ * Each level is a ring of buckets, every bucket is a doubly-linked list of timers. Level 0
+ * buckets each cover about a second, level 1 about a minute, level 2 about an hour and the
+ * last level about a day. Scheduling and removing a timer is O(1); advancing only visits
+ * the buckets the clock has moved past, and timers in a coarse bucket that are not due yet
+ * fall down into a finer level. Not thread-safe, the cache that owns it does the locking.
+ *
+ * Adapted from Caffeine's TimerWheel (bucket counts, spans and the cascade on advance),
+ * https://github.com/ben-manes/caffeine
+ * Copyright Ben Manes. Licensed under the Apache License, Version 2.0:
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Changes: single-threaded, plain Timer base class instead of the cache's node type.
+ */
+public class TimerWheel {
+    /** Something that can sit in the wheel, cache entries extend this. */
+    public static class Timer {
+        long expiresAt;
+        Timer prevInWheel, nextInWheel;
+
+        // true while the timer is linked into a bucket
+        boolean isScheduled() { return prevInWheel != null; }
+    }
+
+
+    // Buckets per level and the time span (as a power of two of nanoseconds) of one bucket
+    private static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+    private static final long[] SPANS = {
+        1L << 30,   // 1.07s
+        1L << 36,   // 1.14m
+        1L << 42,   // 1.22h
+        1L << 46,   // 19.5h
+        1L << 48,   // 3.26d
+    };
+    private static final int[] SHIFT = { 30, 36, 42, 46, 48 };
+
+
+    // Wheel properties
+    private final Timer[][] wheel;
+    private final Consumer<Timer> onExpire;
+    private long time;
+
+
+
+    // Constructor, onExpire is called for every timer whose deadline has passed
+    public TimerWheel(long now, Consumer<Timer> onExpire) {
+        this.time = now;
+        this.onExpire = onExpire;
+        wheel = new Timer[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = new Timer[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                // each bucket is a circular list around a sentinel
+                Timer sentinel = new Timer();
+                sentinel.prevInWheel = sentinel;
+                sentinel.nextInWheel = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+
+
+    // Add a timer to the bucket that matches its deadline
+    public void schedule(Timer timer) {
+        Timer sentinel = findBucket(timer.expiresAt);
+        timer.nextInWheel = sentinel;
+        timer.prevInWheel = sentinel.prevInWheel;
+        sentinel.prevInWheel.nextInWheel = timer;
+        sentinel.prevInWheel = timer;
+    }
+
+
+
+    // Move a timer after its deadline changed
+    public void reschedule(Timer timer) {
+        if (timer.isScheduled()) unlink(timer);
+        schedule(timer);
+    }
+
+
+
+    // Take a timer out of the wheel (safe to call if it isn't scheduled)
+    public void deschedule(Timer timer) {
+        if (timer.isScheduled()) unlink(timer);
+    }
+
+
+
+    private void unlink(Timer timer) {
+        timer.prevInWheel.nextInWheel = timer.nextInWheel;
+        timer.nextInWheel.prevInWheel = timer.prevInWheel;
+        timer.prevInWheel = null;
+        timer.nextInWheel = null;
+    }
+
+
+
+    // Pick the level whose range covers the time left, then the bucket inside that level
+    private Timer findBucket(long deadline) {
+        long duration = deadline - time;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = deadline >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+
+
+    // Move the clock to now, expiring or cascading the timers in every bucket passed
+    public void advance(long now) {
+        long previous = time;
+        time = now;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            // higher levels only turn when the level below them wraps
+            if (currentTicks - previousTicks <= 0L) break;
+            expire(i, previousTicks, currentTicks - previousTicks);
+        }
+    }
+
+
+
+    // Empty the buckets the clock moved over at one level
+    private void expire(int level, long previousTicks, long delta) {
+        Timer[] timerWheel = wheel[level];
+        int mask = timerWheel.length - 1;
+        int steps = (int) Math.min(1 + delta, timerWheel.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+        for (int i = start; i < end; i++) {
+            Timer sentinel = timerWheel[i & mask];
+            Timer t = sentinel.nextInWheel;
+            // detach the whole bucket first so rescheduled timers can land back in it safely
+            sentinel.prevInWheel = sentinel;
+            sentinel.nextInWheel = sentinel;
+            while (t != sentinel) {
+                Timer next = t.nextInWheel;
+                t.prevInWheel = null;
+                t.nextInWheel = null;
+                if (t.expiresAt - time > 0) {
+                    // not due yet, cascade into a finer bucket
+                    schedule(t);
+                } else {
+                    onExpire.accept(t);
+                }
+                t = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package CA2;
+
+import java.util.HashMap;
+
+/**
+ * HashMapLRU with a W-TinyLFU admission policy. New keys go into a small window LRU first
+ * so bursts of recent keys still get hits. When the window overflows its LRU entry becomes a
+ * candidate for the main LRU, and it only replaces the main LRU victim if the frequency
+ * sketch says the candidate has been seen more often. A one-off scan therefore can't flush
+ * the hot keys out of the main segment.
+ */
+public class TinyLfuHashMapLRU implements StringCache {
+    class Node {
+        String key;
+        String value;
+        boolean inWindow;
+        Node prev, next;
+        Node(String k, String v) { key = k; value = v; }
+    }
+
+
+    // LRU Cache properties
+    private final HashMap<String, Node> map;
+    private final FrequencySketch sketch;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private int windowSize, mainSize;
+    private final Node windowHead, windowTail;
+    private final Node mainHead, mainTail;
+
+
+
+    // Constructor, 1% of the capacity goes to the window (at least one entry)
+    public TinyLfuHashMapLRU(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.map = new HashMap<>();
+        this.sketch = new FrequencySketch(capacity);
+        windowHead = new Node(null, null);
+        windowTail = new Node(null, null);
+        windowHead.next = windowTail;
+        windowTail.prev = windowHead;
+        mainHead = new Node(null, null);
+        mainTail = new Node(null, null);
+        mainHead.next = mainTail;
+        mainTail.prev = mainHead;
+    }
+
+
+
+    // Add a node to the front of the given list
+    private void addToFront(Node head, Node node) {
+        node.next = head.next;
+        node.prev = head;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+
+
+    // Remove a node from whichever list it is in
+    private void removeNode(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+
+
+    // Move a node to the front of its own list (most recently used)
+    private void moveToFront(Node node) {
+        removeNode(node);
+        addToFront(node.inWindow ? windowHead : mainHead, node);
+    }
+
+
+
+    // Insert or update a key-value pair
+    public void put(String key, String value) {
+        if (key == null) return;
+        sketch.increment(key);
+        Node n = map.get(key);
+        if (n != null) {
+            n.value = value;
+            moveToFront(n);
+            return;
+        }
+        // New keys always start in the window
+        Node node = new Node(key, value);
+        node.inWindow = true;
+        addToFront(windowHead, node);
+        map.put(key, node);
+        windowSize++;
+        if (windowSize > windowCapacity) {
+            evictFromWindow();
+        }
+    }
+
+
+
+    // Move the window's LRU entry into main, or drop it if it loses to main's LRU entry
+    private void evictFromWindow() {
+        Node candidate = windowTail.prev;
+        removeNode(candidate);
+        windowSize--;
+        candidate.inWindow = false;
+
+        if (mainSize < mainCapacity) {
+            addToFront(mainHead, candidate);
+            mainSize++;
+            return;
+        }
+
+        Node victim = mainTail.prev;
+        if (victim != mainHead && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            // candidate is more popular, it takes the victim's place
+            removeNode(victim);
+            map.remove(victim.key);
+            addToFront(mainHead, candidate);
+        } else {
+            // candidate is rejected
+            map.remove(candidate.key);
+        }
+    }
+
+
+
+    // Get the value of a key if it exists in the cache
+    public String get(String key) {
+        if (key == null) return null;
+        sketch.increment(key);
+        Node n = map.get(key);
+        if (n == null) return null;
+        moveToFront(n);
+        return n.value;
+    }
+
+
+
+    // Delete a key from the cache
+    public void delete(String key) {
+        Node n = map.remove(key);
+        if (n == null) return;
+        removeNode(n);
+        if (n.inWindow) windowSize--;
+        else mainSize--;
+    }
+
+
+
+    // Number of entries currently cached
+    public int size() {
+        return map.size();
+    }
+
+
+
+    // Print window and main segments from most to least recently used
+    public void printCache() {
+        System.out.print("window [MRU] ");
+        for (Node cur = windowHead.next; cur != windowTail; cur = cur.next) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+        }
+        System.out.println(" [LRU]");
+        System.out.print("main   [MRU] ");
+        for (Node cur = mainHead.next; cur != mainTail; cur = cur.next) {
+            System.out.print(cur.key + ":" + cur.value + " ");
+        }
+        System.out.println(" [LRU]");
+    }
+
+
+
+    // Demo: a hot set survives a long one-off scan
+    public static void main(String[] args) {
+        TinyLfuHashMapLRU cache = new TinyLfuHashMapLRU(10);
+        HashMapLRU plain = new HashMapLRU(10);
+
+        // warm up a hot working set of 8 keys
+        for (int round = 0; round < 5; round++) {
+            for (int i = 1; i <= 8; i++) {
+                String k = "hot" + i;
+                if (cache.get(k) == null) cache.put(k, "v" + i);
+                if (plain.get(k) == null) plain.put(k, "v" + i);
+            }
+        }
+
+        // one-off scan of 100 cold keys
+        for (int i = 0; i < 100; i++) {
+            cache.put("scan" + i, "s" + i);
+            plain.put("scan" + i, "s" + i);
+        }
+
+        int tinyHits = 0, plainHits = 0;
+        for (int i = 1; i <= 8; i++) {
+            if (cache.get("hot" + i) != null) tinyHits++;
+            if (plain.get("hot" + i) != null) plainHits++;
+        }
+        cache.printCache();
+        System.out.println("hot keys still cached: W-TinyLFU " + tinyHits + "/8, plain LRU " + plainHits + "/8");
+    }
+}
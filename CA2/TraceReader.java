@@ -0,0 +1,86 @@
+package CA2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streams the keys of a cache access trace without loading the file into memory. The file is
+ * read through a FileChannel into one reusable direct buffer and split into lines by hand, so
+ * a multi-GB trace only ever needs a megabyte of buffer. Supported formats:
+ *   ARC  - "start count ignored requestNo" per line, meaning blocks start .. start+count-1
+ *   LIRS - one block number per line, lines starting with '*' are skipped
+ *   TEXT - one key per line, only the first whitespace-separated token is used
+ */
+public class TraceReader {
+    public enum Format { ARC, LIRS, TEXT }
+
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+
+
+    // Call onKey for every access in the trace, returns the number of accesses
+    public static long forEachKey(Path file, Format format, Consumer<String> onKey) throws IOException {
+        long[] count = { 0 };
+        forEachLine(file, line -> count[0] += parseLine(line, format, onKey));
+        return count[0];
+    }
+
+
+
+    // Turn one trace line into zero or more key accesses
+    private static long parseLine(String line, Format format, Consumer<String> onKey) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) return 0;
+        String[] parts = trimmed.split("\\s+");
+        switch (format) {
+            case ARC: {
+                if (parts.length < 2) return 0;
+                long start = Long.parseLong(parts[0]);
+                long n = Long.parseLong(parts[1]);
+                for (long i = 0; i < n; i++) onKey.accept(Long.toString(start + i));
+                return n;
+            }
+            case LIRS:
+                if (trimmed.charAt(0) == '*') return 0;
+                onKey.accept(parts[0]);
+                return 1;
+            default:
+                onKey.accept(parts[0]);
+                return 1;
+        }
+    }
+
+
+
+    // Read the file line by line through a single direct buffer
+    private static void forEachLine(Path file, Consumer<String> onLine) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            byte[] line = new byte[256];
+            int len = 0;
+            while (ch.read(buf) != -1) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    byte b = buf.get();
+                    if (b == '\n') {
+                        onLine.accept(new String(line, 0, len, StandardCharsets.UTF_8));
+                        len = 0;
+                    } else if (b != '\r') {
+                        if (len == line.length) line = Arrays.copyOf(line, len * 2);
+                        line[len++] = b;
+                    }
+                }
+                buf.clear();
+            }
+            // last line without a trailing newline
+            if (len > 0) onLine.accept(new String(line, 0, len, StandardCharsets.UTF_8));
+        }
+    }
+}
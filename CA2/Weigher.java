@@ -0,0 +1,21 @@
+package CA2;
+
+/**
+ * Works out how many bytes an entry costs so a cache can be capped on memory instead of
+ * on entry count.
+ */
+@FunctionalInterface
+public interface Weigher {
+    // Weight of one entry in bytes, must not be negative
+    int weigh(String key, String value);
+
+
+    // Default estimate: String header plus backing array header (about 40 bytes) and two bytes per char
+    Weigher STRING_SIZE = (key, value) -> stringSize(key) + stringSize(value);
+
+
+    // Rough heap size of a String, null counts as nothing
+    static int stringSize(String s) {
+        return s == null ? 0 : 40 + 2 * s.length();
+    }
+}
@@ -0,0 +1,257 @@
+package CA2;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dirty entries waiting to be written to a CacheWriter. Writes are coalesced per key, so a key
+ * updated ten times before a flush is written once with its latest value (a delete replaces a
+ * pending write and the other way round). A background thread flushes in batches of up to
+ * batchSize, as soon as batchSize keys are dirty or every maxDelay, whichever comes first.
+ * flush(key) writes one key straight away on the calling thread, for entries leaving the cache;
+ * it doesn't wait for a background batch unless that batch holds the same key. A key is only
+ * ever handed to the writer by one call at a time, so an older value can never overwrite a
+ * newer one, but the writer may be called for different keys from two threads at once.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+    // Marks a pending delete, compared by identity
+    private static final String DELETED = new String("<deleted>");
+
+
+    // Queue properties, dirty and writing are guarded by "this"
+    private final CacheWriter writer;
+    private final int batchSize;
+    private final LinkedHashMap<String, String> dirty = new LinkedHashMap<>();
+    // keys being written right now, by a batch or by flush(key)
+    private final Set<String> writing = new HashSet<>();
+    // one background/flush() drain at a time, flush(key) doesn't take it
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+
+
+    // Constructor, flushes when batchSize keys are dirty or every maxDelay
+    public WriteBehindQueue(CacheWriter writer, int batchSize, long maxDelay, TimeUnit unit) {
+        this.writer = writer;
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushPending, maxDelay, maxDelay, unit);
+    }
+
+
+
+    // Mark the key dirty with a new value, a null value can't be stored so it counts as a delete
+    public void enqueue(String key, String value) {
+        add(key, value == null ? DELETED : value);
+    }
+
+
+
+    // Mark the key for deletion from the store
+    public void enqueueDelete(String key) {
+        add(key, DELETED);
+    }
+
+
+
+    private void add(String key, String value) {
+        int pending;
+        synchronized (this) {
+            // a key that is already dirty keeps its place in line, so a hot key still gets flushed
+            if (dirty.put(key, value) != null) coalesced.increment();
+            pending = dirty.size();
+        }
+        if (pending >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushPending();
+            });
+        }
+    }
+
+
+
+    // Write the key now if it is dirty, returns true if something was written
+    public boolean flush(String key) {
+        String value = claim(key);
+        if (value == null) return false;
+        try {
+            if (value == DELETED) writer.delete(key);
+            else writer.write(key, value);
+            flushed.increment();
+        } catch (RuntimeException e) {
+            requeue(Map.of(key, value));
+            throw e;
+        } finally {
+            doneWriting(Set.of(key));
+        }
+        return true;
+    }
+
+
+
+    // Take the key's pending value and mark it as being written, first waiting out a batch
+    // that is writing the same key. Waits uninterruptibly, an eviction can't give up half way
+    private synchronized String claim(String key) {
+        boolean interrupted = false;
+        while (writing.contains(key)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        String value = dirty.remove(key);
+        if (value != null) writing.add(key);
+        return value;
+    }
+
+
+
+    private synchronized void doneWriting(Set<String> keys) {
+        writing.removeAll(keys);
+        notifyAll();
+    }
+
+
+
+    // Write everything that is dirty, on the calling thread
+    public void flush() {
+        flushPending();
+    }
+
+
+
+    // Drain the dirty map batch by batch, stopping at the first failed batch
+    private void flushPending() {
+        flushLock.lock();
+        try {
+            while (true) {
+                Map<String, String> batch = takeBatch();
+                if (batch.isEmpty()) return;
+                if (!writeBatch(batch)) return;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+
+
+    // Take up to batchSize keys, the ones dirty the longest first, skipping keys a flush(key)
+    // is writing right now (they stay dirty for the next batch)
+    private synchronized Map<String, String> takeBatch() {
+        Map<String, String> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, String>> it = dirty.entrySet().iterator();
+        while (batch.size() < batchSize && it.hasNext()) {
+            Map.Entry<String, String> e = it.next();
+            if (writing.contains(e.getKey())) continue;
+            batch.put(e.getKey(), e.getValue());
+            it.remove();
+        }
+        writing.addAll(batch.keySet());
+        return batch;
+    }
+
+
+
+    // Hand one batch to the writer, a failed batch goes back in the queue for the next flush
+    private boolean writeBatch(Map<String, String> batch) {
+        Map<String, String> writes = new LinkedHashMap<>();
+        List<String> deletes = new ArrayList<>();
+        for (Map.Entry<String, String> e : batch.entrySet()) {
+            if (e.getValue() == DELETED) deletes.add(e.getKey());
+            else writes.put(e.getKey(), e.getValue());
+        }
+        try {
+            if (!writes.isEmpty()) writer.writeAll(writes);
+            if (!deletes.isEmpty()) writer.deleteAll(deletes);
+            flushed.add(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            failures.increment();
+            Logger.getLogger(WriteBehindQueue.class.getName()).log(Level.WARNING, "write-behind flush failed, will retry", e);
+            requeue(batch);
+            return false;
+        } finally {
+            doneWriting(batch.keySet());
+        }
+    }
+
+
+
+    // Put unwritten entries back unless the key was dirtied again in the meantime
+    private synchronized void requeue(Map<String, String> batch) {
+        for (Map.Entry<String, String> e : batch.entrySet()) {
+            dirty.putIfAbsent(e.getKey(), e.getValue());
+        }
+    }
+
+
+
+    // Number of keys waiting to be written
+    public synchronized int pending() {
+        return dirty.size();
+    }
+
+
+
+    // Updates that replaced a pending write instead of adding another
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+
+
+    // Keys written or deleted in the store so far
+    public long flushedCount() {
+        return flushed.sum();
+    }
+
+
+
+    // Batches that threw and were put back for a retry
+    public long failureCount() {
+        return failures.sum();
+    }
+
+
+
+    // Stop the background thread and write whatever is still dirty. If interrupted while waiting
+    // for the thread, the dirty keys are still written, then the interrupt flag is restored and
+    // an IllegalStateException thrown
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            flushPending();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for the write-behind thread", e);
+        }
+        flushPending();
+    }
+}
@@ -0,0 +1,565 @@
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free version of HashTableDivideAndConquering for sharing between threads, built the
+ * way Cliff Click's NonBlockingHashMap is:
+ *  - a key claims a slot with one CAS and keeps it for the life of the table, after that its
+ *    value is changed with CAS on the node, so insert never takes a lock
+ *  - get is only volatile reads, it never writes and never waits
+ *  - delete CASes the value to TOMBSTONE, the key stays so probe runs are never broken
+ *  - resize is cooperative: once a new table is hung off the old one, every writer copies a
+ *    chunk of old slots before doing its own work. A copied slot is frozen (its value wrapped
+ *    in Moved, or an empty slot set to DEAD) so nothing can change it in the old table any more.
+ *    Tombstones are not copied, which is how deleted keys are cleaned out
+ *  - a copy lands by claiming the key's node in the next table with no value yet, then CASing
+ *    the value in only if it is still empty, so any thread can finish a frozen slot and doing it
+ *    twice (or late, after the key was changed or deleted there) is harmless. New keys only go
+ *    into a table once everything from the one before it has landed, which keeps room for the
+ *    copies and means a table is never copied on while copies into it are still pending
+ */
+public class ConcurrentHashTableDivideAndConquering {
+
+    // A claimed slot: the key never changes, the value moves between live, TOMBSTONE and Moved.
+    // A node claimed by a copy has a null value until the copied value lands
+    private static final class Node {
+        final String key;
+        final int hash;
+        volatile Object value;
+        Node(String k, int h, Object v) { key = k; hash = h; value = v; }
+    }
+
+
+    // Frozen value of a slot that is being copied to the next table, done once the copy landed
+    private static final class Moved {
+        final Object value;
+        volatile boolean done;
+        Moved(Object v) { value = v; }
+    }
+
+
+    // One generation of the table, plus the state of its migration to the next one
+    private static final class Table {
+        final AtomicReferenceArray<Node> slots;
+        final int mask;
+        final AtomicInteger claimed = new AtomicInteger();
+        final AtomicReference<Table> next = new AtomicReference<>();
+        final AtomicInteger copyIndex = new AtomicInteger();
+        final AtomicInteger copied = new AtomicInteger();
+        // the table being copied into this one, null once all of its copies have landed
+        volatile Table prev;
+        Table(int length, Table prev) { slots = new AtomicReferenceArray<>(length); mask = length - 1; this.prev = prev; }
+        int length() { return mask + 1; }
+    }
+
+
+
+
+    // Hash table properties
+    private final AtomicReference<Table> top;
+    private final LongAdder size = new LongAdder();
+    private static final double LOAD_FACTOR = 0.75;
+    private static final int COPY_CHUNK = 1024;
+    private static final Object TOMBSTONE = new Object();
+    private static final Node DEAD = new Node(null, 0, null);
+    private static final VarHandle VALUE;
+    private static final VarHandle DONE;
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+            DONE = MethodHandles.lookup().findVarHandle(Moved.class, "done", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+
+
+
+    // Constructor to initialize the hash table with a given capacity (rounded up to a power of two)
+    public ConcurrentHashTableDivideAndConquering(int capacity) {
+        int length = Integer.highestOneBit(Math.max(4, capacity) - 1) << 1;
+        this.top = new AtomicReference<>(new Table(length, null));
+    }
+
+
+
+
+
+    // Spread the hash so keys differing in their high bits don't share a probe run
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+
+    private static boolean casValue(Node n, Object expect, Object update) {
+        return VALUE.compareAndSet(n, expect, update);
+    }
+
+
+
+
+
+    // Insert or update a key->value pair
+    public void insert(String key, String value) {
+        if (key == null || value == null) return;
+        put(top.get(), key, hash(key), value);
+    }
+
+
+
+
+
+    // Get value for a key (null if not found), lock-free and never writes
+    public String get(String key) {
+        if (key == null) return null;
+        Object v = lookup(top.get(), key, hash(key));
+        return (v == null || v == TOMBSTONE) ? null : (String) v;
+    }
+
+
+
+
+    // Check existence of a key
+    public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+
+
+
+    // Delete a key by tombstoning its value
+    public void delete(String key) {
+        if (key == null) return;
+        put(top.get(), key, hash(key), TOMBSTONE);
+    }
+
+
+
+
+    // Number of live keys
+    public int size() {
+        return (int) size.sum();
+    }
+
+
+
+
+
+    // Value (or TOMBSTONE) for the key in this table or a newer one, null if it was never there
+    private Object lookup(Table t, String key, int h) {
+        int index = h & t.mask;
+        for (int probes = 0; probes <= t.mask; probes++) {
+            Node n = t.slots.get(index);
+            // end of the run: new keys only go into the newest table, so look there
+            if (n == null) break;
+            if (n != DEAD && n.hash == h && n.key.equals(key)) {
+                // null: the copy from the table before hasn't landed, the caller has the value
+                Object v = n.value;
+                if (v instanceof Moved) {
+                    // a newer value may have been written after the copy, else the frozen one holds
+                    Object newer = lookup(t.next.get(), key, h);
+                    return newer != null ? newer : ((Moved) v).value;
+                }
+                return v;
+            }
+            index = (index + 1) & t.mask;
+        }
+        Table next = t.next.get();
+        return next == null ? null : lookup(next, key, h);
+    }
+
+
+
+
+
+    // Insert, update or (value == TOMBSTONE) delete in table t or the one it is migrating to
+    private void put(Table t, String key, int h, Object value) {
+        Table next = t.next.get();
+        if (next != null) {
+            // resize in progress: help along, copy this key's slot, then write to the new table
+            helpCopy(t);
+            copySlot(t, findSlot(t, key, h));
+            put(next, key, h, value);
+            return;
+        }
+        int index = h & t.mask;
+        for (int probes = 0; probes <= t.mask; probes++) {
+            Node n = t.slots.get(index);
+            if (n == null) {
+                // nothing to delete, and a copy of a tombstone is never needed
+                if (value == TOMBSTONE) return;
+                // a new key waits until the copies into t have room, finishing them if need be
+                Table prev = t.prev;
+                if (prev != null) {
+                    finishCopy(prev);
+                    probes--;
+                    continue;
+                }
+                if (t.claimed.get() + 1 > t.length() * LOAD_FACTOR) break;
+                Node node = new Node(key, h, value);
+                if (t.slots.compareAndSet(index, null, node)) {
+                    t.claimed.incrementAndGet();
+                    size.increment();
+                    return;
+                }
+                // lost the race for this slot, look at it again
+                probes--;
+                continue;
+            }
+            // slot frozen by a copy, the key now belongs to the next table
+            if (n == DEAD) break;
+            if (n.hash == h && n.key.equals(key)) {
+                while (true) {
+                    Object v = n.value;
+                    if (v instanceof Moved) break;
+                    if (casValue(n, v, value)) {
+                        if (v == TOMBSTONE && value != TOMBSTONE) size.increment();
+                        if (v != TOMBSTONE && value == TOMBSTONE) size.decrement();
+                        return;
+                    }
+                }
+                break;
+            }
+            index = (index + 1) & t.mask;
+        }
+        // table full, or this slot is being moved: make sure a new table exists and go again
+        startResize(t);
+        put(t, key, h, value);
+    }
+
+
+
+
+
+    // Slot holding the key in t, or the empty/DEAD slot that ends its probe run
+    private static int findSlot(Table t, String key, int h) {
+        int index = h & t.mask;
+        for (int probes = 0; probes <= t.mask; probes++) {
+            Node n = t.slots.get(index);
+            if (n == null || (n != DEAD && n.hash == h && n.key.equals(key))) return index;
+            index = (index + 1) & t.mask;
+        }
+        return -1;
+    }
+
+
+
+
+
+    // Hang a new table off t: twice the size, or the same size if it is mostly tombstones.
+    // Copies into t have to land first, t's own copy would skip the ones still pending
+    private void startResize(Table t) {
+        if (t.next.get() != null) return;
+        Table prev = t.prev;
+        if (prev != null) finishCopy(prev);
+        long live = size.sum();
+        int length = live * 4 >= t.length() ? t.length() * 2 : t.length();
+        t.next.compareAndSet(null, new Table(length, t));
+    }
+
+
+
+
+
+    // Copy one chunk of t's slots into the next table
+    private void helpCopy(Table t) {
+        int start = t.copyIndex.getAndAdd(COPY_CHUNK);
+        int end = Math.min(t.length(), start + COPY_CHUNK);
+        for (int i = start; i < end; i++) copySlot(t, i);
+    }
+
+
+
+
+
+    // Copy whatever is left of t. Slots other threads are part way through are finished here
+    // too rather than waited for, so when this returns every copy out of t has landed
+    private void finishCopy(Table t) {
+        while (t.copyIndex.get() < t.length()) helpCopy(t);
+        for (int i = 0; i < t.length(); i++) copySlot(t, i);
+        t.next.get().prev = null;
+    }
+
+
+
+
+
+    // Freeze slot i of t and make sure its live value is in the next table. Any thread may land
+    // the copy of a frozen slot; whoever marks it done counts it, so each slot is counted once
+    // and only after its copy has landed
+    private void copySlot(Table t, int i) {
+        if (i < 0) return;
+        Table next = t.next.get();
+        while (true) {
+            Node n = t.slots.get(i);
+            if (n == null) {
+                if (t.slots.compareAndSet(i, null, DEAD)) {
+                    slotCopied(t);
+                    return;
+                }
+                continue;
+            }
+            if (n == DEAD) return;
+            Object v = n.value;
+            Moved m;
+            if (v instanceof Moved) {
+                m = (Moved) v;
+            } else {
+                m = new Moved(v);
+                if (!casValue(n, v, m)) continue;
+            }
+            if (m.done) return;
+            if (m.value != TOMBSTONE) land(next, n.key, n.hash, m.value);
+            if (DONE.compareAndSet(m, false, true)) slotCopied(t);
+            return;
+        }
+    }
+
+
+
+
+
+    // Put a copied value into the key's node in next, claiming the node (with no value) if it
+    // isn't there yet. The value only goes in while the node is still empty, so a copy landing
+    // a second time, or after the key was written or deleted in next, changes nothing. next
+    // always has room: it takes no new keys and no copy of its own until these have landed
+    private static void land(Table next, String key, int h, Object v) {
+        int index = h & next.mask;
+        for (int probes = 0; probes <= next.mask; probes++) {
+            Node n = next.slots.get(index);
+            if (n == null) {
+                Node node = new Node(key, h, null);
+                if (!next.slots.compareAndSet(index, null, node)) {
+                    probes--;
+                    continue;
+                }
+                next.claimed.incrementAndGet();
+                n = node;
+            }
+            if (n != DEAD && n.hash == h && n.key.equals(key)) {
+                casValue(n, null, v);
+                return;
+            }
+            index = (index + 1) & next.mask;
+        }
+        throw new IllegalStateException("no slot for a copied key");
+    }
+
+
+
+
+
+    // Once every slot of a table is across, the next one becomes the top one. Tables can finish
+    // out of order (the next one may be done before the top moved to it), so keep going
+    private void slotCopied(Table t) {
+        if (t.copied.incrementAndGet() != t.length()) return;
+        t.next.get().prev = null;
+        Table cur;
+        while ((cur = top.get()).copied.get() == cur.length()) {
+            top.compareAndSet(cur, cur.next.get());
+        }
+    }
+
+
+
+
+
+    // Number of tables still reachable from the top one
+    private int tables() {
+        int n = 0;
+        for (Table t = top.get(); t != null; t = t.next.get()) n++;
+        return n;
+    }
+
+
+
+
+
+    // Print the hash table for debugging (the newest table only once a resize has finished)
+    public void printTable() {
+        Table t = top.get();
+        String[] out = new String[t.length()];
+        for (int i = 0; i < t.length(); i++) {
+            Node n = t.slots.get(i);
+            Object v = n == null || n == DEAD ? null : n.value;
+            out[i] = (v == null || v == TOMBSTONE || v instanceof Moved) ? "null" : n.key + "=" + v;
+        }
+        System.out.println(Arrays.toString(out));
+    }
+
+    // Demo main (uses key==value for simplicity)
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentHashTableDivideAndConquering t = new ConcurrentHashTableDivideAndConquering(20);
+        t.insert("ATU Letterkenny", "ATU Letterkenny");
+        t.insert("ATU Killybegs", "ATU Killybegs");
+        t.insert("ATU Sligo", "ATU Sligo");
+        t.insert("ATU Galway Mayo", "ATU Galway Mayo");
+        t.insert("ATU Killybegs", "ATU Killybegs"); // update/duplicate
+        for (int i = 1; i <= 15; i++) t.insert("UNI " + i, "UNI " + i);
+
+        t.printTable();
+        System.out.println("Is 'ATU Sligo' in the table? " + t.contains("ATU Sligo"));
+        System.out.println("Is 'ATU Dundalk' in the table? " + t.contains("ATU Dundalk"));
+
+        t.delete("ATU Galway Mayo");
+        t.printTable();
+
+        stressTest(Math.max(4, Runtime.getRuntime().availableProcessors()), 20);
+
+        // Read-mostly traffic (90% get) from several threads, against the original table behind
+        // one lock. The table starts small so several cooperative resizes happen on the way
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ConcurrentHashTableDivideAndConquering lockFree = new ConcurrentHashTableDivideAndConquering(16);
+        HashTableDivideAndConquering locked = new HashTableDivideAndConquering(16);
+        for (int run = 0; run < 2; run++) {
+            long lockFreeOps = runWorkers(threads, (key, write) -> {
+                if (write) lockFree.insert(key, key);
+                else lockFree.get(key);
+            });
+            long lockedOps = runWorkers(threads, (key, write) -> {
+                synchronized (locked) {
+                    if (write) locked.insert(key, key);
+                    else locked.get(key);
+                }
+            });
+            System.out.printf("%d threads: lock-free %,d ops/sec, single lock %,d ops/sec%n",
+                threads, lockFreeOps, lockedOps);
+        }
+        System.out.println("lock-free size " + lockFree.size() + ", 'k42' -> " + lockFree.get("k42"));
+    }
+
+
+
+    // Stress test: threads share one table that starts tiny, so it resizes many times while they
+    // write. Each thread checks its own keys against a HashMap as it goes; all threads also
+    // insert one shared set of keys and then all delete it. At the end every shared key must
+    // stay deleted, size() must match the live keys, and at most two tables may be reachable
+    private static void stressTest(int threads, int rounds) throws InterruptedException {
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        int sharedKeys = 2_000, ownKeys = 500;
+        for (int round = 0; round < rounds; round++) {
+            ConcurrentHashTableDivideAndConquering map = new ConcurrentHashTableDivideAndConquering(4);
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Map<String, String>> models = new ArrayList<>();
+            List<Thread> workers = new ArrayList<>();
+            for (int w = 0; w < threads; w++) {
+                Map<String, String> model = new HashMap<>();
+                models.add(model);
+                final int id = w, seed = round * threads + w;
+                Thread thread = new Thread(() -> {
+                    Random rnd = new Random(seed);
+                    try {
+                        for (int phase = 0; phase < 2; phase++) {
+                            for (int i = 0; i < sharedKeys; i++) {
+                                String key = "s" + rnd.nextInt(sharedKeys);
+                                if (phase == 0) map.insert(key, key);
+                                else map.delete(key);
+                                ownOp(map, model, "t" + id + "_" + rnd.nextInt(ownKeys), rnd, failures);
+                            }
+                            // every shared key, whatever the random picks missed
+                            for (int i = 0; i < sharedKeys; i++) {
+                                if (phase == 0) map.insert("s" + i, "s" + i);
+                                else map.delete("s" + i);
+                            }
+                            barrier.await();
+                        }
+                    } catch (InterruptedException | BrokenBarrierException e) {
+                        failures.add("worker " + id + " stopped: " + e);
+                    }
+                });
+                workers.add(thread);
+                thread.start();
+            }
+            for (Thread thread : workers) thread.join();
+
+            int live = 0;
+            for (Map<String, String> model : models) {
+                live += model.size();
+                for (Map.Entry<String, String> e : model.entrySet()) {
+                    if (!e.getValue().equals(map.get(e.getKey()))) failures.add(e.getKey() + " lost its value");
+                }
+            }
+            for (int i = 0; i < sharedKeys; i++) {
+                if (map.get("s" + i) != null) failures.add("deleted key s" + i + " came back");
+            }
+            if (map.size() != live) failures.add("size " + map.size() + ", expected " + live);
+            if (map.tables() > 2) failures.add(map.tables() + " tables still reachable");
+        }
+        System.out.println("stress test, " + threads + " threads x " + rounds + " rounds: "
+            + (failures.isEmpty() ? "ok" : failures.size() + " failures, first " + failures.peek()));
+    }
+
+
+
+    // One random insert, delete or get on a key only this thread uses, checked against its model
+    private static void ownOp(ConcurrentHashTableDivideAndConquering map, Map<String, String> model,
+                              String key, Random rnd, ConcurrentLinkedQueue<String> failures) {
+        int op = rnd.nextInt(3);
+        if (op == 0) {
+            String value = key + "#" + rnd.nextInt(1000);
+            map.insert(key, value);
+            model.put(key, value);
+        } else if (op == 1) {
+            map.delete(key);
+            model.remove(key);
+        } else {
+            String got = map.get(key);
+            if (got == null ? model.get(key) != null : !got.equals(model.get(key))) {
+                failures.add(key + " read " + got + ", expected " + model.get(key));
+            }
+        }
+    }
+
+
+
+    // One operation of the demo workload
+    private interface Op {
+        void run(String key, boolean write);
+    }
+
+
+
+    // Run the workload on n threads for half a second, returns operations per second
+    private static long runWorkers(int n, Op op) throws InterruptedException {
+        String[] keys = new String[100_000];
+        for (int i = 0; i < keys.length; i++) keys[i] = "k" + i;
+        LongAdder ops = new LongAdder();
+        long end = System.nanoTime() + 500_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < n; w++) {
+            final int seed = w;
+            Thread thread = new Thread(() -> {
+                Random rnd = new Random(seed);
+                long done = 0;
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 1000; i++) {
+                        op.run(keys[rnd.nextInt(keys.length)], rnd.nextInt(10) == 0);
+                    }
+                    done += 1000;
+                }
+                ops.add(done);
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : workers) thread.join();
+        return ops.sum() * 2;
+    }
+}
@@ -1,6 +1,13 @@
 
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class HashTableDivideAndConquering {
 
@@ -21,14 +28,40 @@ public class HashTableDivideAndConquering {
     private int size;
     private static final double LOAD_FACTOR = 0.75;
 
+    // Incremental resize (like Redis dict): while oldTable is not null both tables are live and
+    // every operation moves the next MIGRATE_SLOTS old slots across. Moved slots are left as
+    // MOVED so probe runs in the old table aren't cut short; the old table never takes inserts.
+    private final boolean incremental;
+    private Entry[] oldTable;
+    private int migrateIndex;
+    private static final int MIGRATE_SLOTS = 16;
+    private static final Entry MOVED = new Entry(null, null);
+
+    // Parallel resize (off unless setParallelResize(true)): a synchronous resize of a table at
+    // least PARALLEL_MIN_SLOTS big is split into PARALLEL_LEAF slot ranges rehashed on the
+    // ForkJoinPool
+    private boolean parallelResize = false;
+    private static final int PARALLEL_MIN_SLOTS = 1 << 16;
+    private static final int PARALLEL_LEAF = 1 << 13;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Entry[].class);
+
 
 
 
     // Constructor to initialize the hash table with a given capacity
     public HashTableDivideAndConquering(int capacity) {
+        this(capacity, false);
+    }
+
+
+
+
+    // Constructor, incremental = spread each resize over the following operations
+    public HashTableDivideAndConquering(int capacity, boolean incremental) {
         this.capacity = Math.max(4, capacity);
         this.size = 0;
         this.table = new Entry[this.capacity];
+        this.incremental = incremental;
     }
 
 
@@ -37,7 +70,13 @@ public class HashTableDivideAndConquering {
 
     // Simple hash function to map a string key to an index
     private int hash(String key) {
-        return Math.abs(key.hashCode()) % capacity;
+        return hash(key, capacity);
+    }
+
+
+
+    private static int hash(String key, int capacity) {
+        return (key.hashCode() & 0x7FFFFFFF) % capacity;
     }
 
 
@@ -47,10 +86,24 @@ public class HashTableDivideAndConquering {
     // Insert or update a key->value pair
     public void insert(String key, String value) {
         if (key == null) return;
+        if (oldTable != null) migrateStep();
         // resize if load factor would be exceeded
         if ((double)(size + 1) / capacity > LOAD_FACTOR) {
+            // a resize still in progress is finished first (rare, the new table is twice as big)
+            while (oldTable != null) migrateStep();
             resize();
         }
+        // a key still in the old table moves to the new one with its new value
+        if (removeFromOld(key)) size--;
+        putRaw(key, value);
+    }
+
+
+
+
+
+    // Insert or update in the current table, no resizing
+    private void putRaw(String key, String value) {
         // Find the next available slot using linear probing
         int index = hash(key);
         while (table[index] != null) {
@@ -74,6 +127,23 @@ public class HashTableDivideAndConquering {
     // Get value for a key (null if not found)
     public String get(String key) {
         if (key == null) return null;
+        if (oldTable != null) {
+            migrateStep();
+            // check the new table first, then the part of the old one not moved yet
+            String value = getFrom(key);
+            if (value != null || oldTable == null) return value;
+            int index = findInOld(key);
+            return index < 0 ? null : oldTable[index].value;
+        }
+        return getFrom(key);
+    }
+
+
+
+
+
+    // Get value for a key from the current table
+    private String getFrom(String key) {
         int index = hash(key);
         int start = index;
         // Linear probing to find the key
@@ -105,6 +175,13 @@ public class HashTableDivideAndConquering {
     public void delete(String key) {
         // Check for null key
         if (key == null) return;
+        if (oldTable != null) {
+            migrateStep();
+            if (removeFromOld(key)) {
+                size--;
+                return;
+            }
+        }
         int index = hash(key);
         int start = index;
 
@@ -123,7 +200,7 @@ public class HashTableDivideAndConquering {
                     Entry e = table[next];
                     table[next] = null;
                     size--;
-                    insert(e.key, e.value);
+                    putRaw(e.key, e.value);
                     next = (next + 1) % capacity;
                 }
                
@@ -146,6 +223,17 @@ public class HashTableDivideAndConquering {
         Entry[] old = table;
         capacity *= 2;
         table = new Entry[capacity];
+        if (incremental) {
+            // leave the entries where they are, later operations move them over
+            oldTable = old;
+            migrateIndex = 0;
+            return;
+        }
+        if (parallelResize && old.length >= PARALLEL_MIN_SLOTS) {
+            // same split as rehashRange, but the halves run on different threads (size is unchanged)
+            ForkJoinPool.commonPool().invoke(new ParallelRehash(old, table, 0, old.length - 1));
+            return;
+        }
         size = 0;
         // Rehash entries using divide-and-conquer order to reduce clustering behavior
         rehashRange(old, 0, old.length - 1);
@@ -155,6 +243,60 @@ public class HashTableDivideAndConquering {
 
 
 
+    // Fork-join version of rehashRange: split the old table in halves until a range is small,
+    // then scatter its entries into the new table. Each free slot is claimed with a CAS, so two
+    // threads probing the same run can never overwrite each other's entry
+    private static final class ParallelRehash extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Entry[] old;
+        private final Entry[] dest;
+        private final int lo, hi;
+
+        ParallelRehash(Entry[] old, Entry[] dest, int lo, int hi) {
+            this.old = old;
+            this.dest = dest;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < PARALLEL_LEAF) {
+                for (int i = lo; i <= hi; i++) {
+                    if (old[i] != null) scatter(dest, old[i]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ParallelRehash(old, dest, lo, mid), new ParallelRehash(old, dest, mid + 1, hi));
+        }
+    }
+
+
+
+
+
+    // Linear probing with a CAS claim, keys in the old table are unique so no equals check
+    private static void scatter(Entry[] dest, Entry e) {
+        int index = hash(e.key, dest.length);
+        while (!SLOT.compareAndSet(dest, index, (Entry) null, e)) {
+            index = (index + 1) % dest.length;
+        }
+    }
+
+
+
+
+
+    // Turn the fork-join rehash for big tables on or off (off by default)
+    public void setParallelResize(boolean parallelResize) {
+        this.parallelResize = parallelResize;
+    }
+
+
+
+
+
     // Rehash entries using divide-and-conquer order to reduce clustering behavior
     private void rehashRange(Entry[] old, int lo, int hi) {
         // if base case then return
@@ -175,8 +317,71 @@ public class HashTableDivideAndConquering {
 
 
 
+    // Move the next MIGRATE_SLOTS slots of the old table into the new one
+    private void migrateStep() {
+        int end = Math.min(oldTable.length, migrateIndex + MIGRATE_SLOTS);
+        for (; migrateIndex < end; migrateIndex++) {
+            Entry e = oldTable[migrateIndex];
+            if (e == null || e == MOVED) continue;
+            oldTable[migrateIndex] = MOVED;
+            // putRaw counts it again
+            size--;
+            putRaw(e.key, e.value);
+        }
+        if (migrateIndex == oldTable.length) oldTable = null;
+    }
+
+
+
+
+
+    // Slot of a key in the old table, or -1. MOVED slots are probed past, not treated as empty
+    private int findInOld(String key) {
+        int oldCapacity = oldTable.length;
+        int index = hash(key, oldCapacity);
+        int start = index;
+        while (oldTable[index] != null) {
+            if (oldTable[index] != MOVED && oldTable[index].key.equals(key)) return index;
+            index = (index + 1) % oldCapacity;
+            if (index == start) break;
+        }
+        return -1;
+    }
+
+
+
+
+
+    // Take a key out of the old table, true if it was there
+    private boolean removeFromOld(String key) {
+        if (oldTable == null) return false;
+        int index = findInOld(key);
+        if (index < 0) return false;
+        oldTable[index] = MOVED;
+        return true;
+    }
+
+
+
+
+
+    // True while an incremental resize is still moving entries
+    public boolean isRehashing() {
+        return oldTable != null;
+    }
+
+
+
+
     // Print the hash table for debugging
     public void printTable() {
+        if (oldTable != null) {
+            String[] old = new String[oldTable.length];
+            for (int i = 0; i < oldTable.length; i++) {
+                old[i] = (oldTable[i] == null) ? "null" : oldTable[i] == MOVED ? "moved" : oldTable[i].toString();
+            }
+            System.out.println("old " + Arrays.toString(old));
+        }
         String[] out = new String[capacity];
         for (int i = 0; i < capacity; i++) {
             out[i] = (table[i] == null) ? "null" : table[i].toString();
@@ -200,5 +405,53 @@ public class HashTableDivideAndConquering {
 
         t.delete("ATU Galway Mayo");
         t.printTable();
+
+        // the resize benchmark takes a few seconds, run with --bench
+        if (Arrays.asList(args).contains("--bench")) benchmarkResizes();
+    }
+
+
+
+
+
+    // Worst insert while growing from 16 to a million entries: the synchronous resize pays
+    // for the whole table in one call (on one thread, or split over the ForkJoinPool), the
+    // incremental one spreads it out. Inserts that a GC pause landed in are skipped so only
+    // the table's own cost is compared. With one core the parallel row is no speed-up, it
+    // only skips the duplicate check the sequential rehash does
+    private static void benchmarkResizes() {
+        String[] keys = new String[1_000_000];
+        Random rnd = new Random(1);
+        for (int i = 0; i < keys.length; i++) keys[i] = Long.toString(rnd.nextLong(), 36);
+        String[] modes = { "sequential", "parallel", "incremental" };
+        System.out.println("fork-join parallelism " + ForkJoinPool.getCommonPoolParallelism()
+            + ", available processors " + Runtime.getRuntime().availableProcessors());
+        for (String mode : modes) {
+            HashTableDivideAndConquering big = new HashTableDivideAndConquering(16, mode.equals("incremental"));
+            big.setParallelResize(mode.equals("parallel"));
+            System.gc();
+            long worst = 0;
+            for (String k : keys) {
+                long gcs = gcCount();
+                long start = System.nanoTime();
+                big.insert(k, k);
+                long took = System.nanoTime() - start;
+                if (gcCount() == gcs) worst = Math.max(worst, took);
+            }
+            System.out.printf("%-11s worst insert %8.3f ms%n", mode, worst / 1e6);
+        }
+    }
+
+
+
+
+
+    // Number of garbage collections so far, across all collectors
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+        }
+        return count;
     }
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Robin Hood variant of HashTableDivideAndConquering. Every entry remembers its probe distance
+ * (how far it sits from its home slot). On insert, an entry that has travelled further takes the
+ * slot of one that is closer to home, and the displaced entry carries on probing. That evens
+ * out probe lengths, so the table can run at a 0.9 load factor:
+ *  - a lookup can stop as soon as it meets an entry closer to home than it would be, because
+ *    the key would have taken that slot, so misses end early
+ *  - delete shifts the rest of the run back one slot instead of reinserting the cluster
+ */
+public class RobinHoodHashTable {
+
+    // Entry class to hold key-value pairs and their distance from home
+    private static class Entry {
+        String key;
+        String value;
+        int dist;
+        Entry(String k, String v) { key = k; value = v; }
+        public String toString() { return key + "=" + value; }
+    }
+
+
+
+
+    // Hash table properties
+    private Entry[] table;
+    private int capacity;
+    private int size;
+    private static final double LOAD_FACTOR = 0.9;
+
+
+
+
+    // Constructor to initialize the hash table with a given capacity
+    public RobinHoodHashTable(int capacity) {
+        this.capacity = Math.max(4, capacity);
+        this.size = 0;
+        this.table = new Entry[this.capacity];
+    }
+
+
+
+
+
+    // Simple hash function to map a string key to an index (masking keeps it non-negative)
+    private int hash(String key) {
+        return (key.hashCode() & 0x7FFFFFFF) % capacity;
+    }
+
+
+
+
+
+    // Insert or update a key->value pair
+    public void insert(String key, String value) {
+        if (key == null) return;
+        // resize if load factor would be exceeded
+        if ((double)(size + 1) / capacity > LOAD_FACTOR) {
+            resize();
+        }
+        int index = hash(key);
+        Entry incoming = new Entry(key, value);
+        boolean displaced = false;
+        while (table[index] != null) {
+            Entry cur = table[index];
+            // update existing (only possible before the first swap, the key can't be past it)
+            if (!displaced && cur.key.equals(key)) {
+                cur.value = value;
+                return;
+            }
+            // rich entry (closer to home) gives its slot to the poor one
+            if (cur.dist < incoming.dist) {
+                table[index] = incoming;
+                incoming = cur;
+                displaced = true;
+            }
+            // Move to the next index because of collision
+            index = (index + 1) % capacity;
+            incoming.dist++;
+        }
+        // Insert the last carried entry into the empty slot
+        table[index] = incoming;
+        size++;
+    }
+
+
+
+
+
+    // Slot holding the key, or -1 if it isn't in the table
+    private int find(String key) {
+        int index = hash(key);
+        int dist = 0;
+        while (table[index] != null) {
+            // an entry closer to home than we are means the key would be here by now
+            if (table[index].dist < dist) return -1;
+            if (table[index].key.equals(key)) return index;
+            index = (index + 1) % capacity;
+            dist++;
+        }
+        return -1;
+    }
+
+
+
+
+
+    // Get value for a key (null if not found)
+    public String get(String key) {
+        if (key == null) return null;
+        int index = find(key);
+        return index < 0 ? null : table[index].value;
+    }
+
+
+
+
+    // Check existence of a key
+    public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+
+
+
+    // Delete a key and shift the rest of its run back one slot (backward-shift deletion)
+    public void delete(String key) {
+        // Check for null key
+        if (key == null) return;
+        int index = find(key);
+        if (index < 0) return;
+
+        // pull every following entry that isn't at home back by one
+        int next = (index + 1) % capacity;
+        while (table[next] != null && table[next].dist > 0) {
+            table[index] = table[next];
+            table[index].dist--;
+            index = next;
+            next = (next + 1) % capacity;
+        }
+        table[index] = null;
+        size--;
+    }
+
+
+
+
+
+
+    // Resize with divide-and-conquer rehashing
+    private void resize() {
+        Entry[] old = table;
+        capacity *= 2;
+        table = new Entry[capacity];
+        size = 0;
+        // Rehash entries using divide-and-conquer order to reduce clustering behavior
+        rehashRange(old, 0, old.length - 1);
+    }
+
+
+
+
+
+    // Rehash entries using divide-and-conquer order to reduce clustering behavior
+    private void rehashRange(Entry[] old, int lo, int hi) {
+        // if base case then return
+        if (lo > hi) return;
+        int mid = (lo + hi) >>> 1;
+
+        // Rehash the middle entry first because it helps reduce clustering
+        if (old[mid] != null) {
+            insert(old[mid].key, old[mid].value);
+        }
+
+        // Recur on left and right halves
+        rehashRange(old, lo, mid - 1);
+        rehashRange(old, mid + 1, hi);
+    }
+
+
+
+
+
+    // Longest probe distance of any entry, the worst case for a successful lookup
+    public int maxProbeDistance() {
+        int max = 0;
+        for (Entry e : table) {
+            if (e != null) max = Math.max(max, e.dist);
+        }
+        return max;
+    }
+
+
+
+
+
+    // Average probe distance over all entries
+    public double averageProbeDistance() {
+        long total = 0;
+        for (Entry e : table) {
+            if (e != null) total += e.dist;
+        }
+        return size == 0 ? 0 : (double) total / size;
+    }
+
+
+
+
+
+    // Current fill of the table
+    public double loadFactor() {
+        return (double) size / capacity;
+    }
+
+
+
+
+    // Print the hash table for debugging
+    public void printTable() {
+        String[] out = new String[capacity];
+        for (int i = 0; i < capacity; i++) {
+            out[i] = (table[i] == null) ? "null" : table[i].toString();
+        }
+        System.out.println(Arrays.toString(out));
+    }
+
+    // Demo main (uses key==value for simplicity)
+    public static void main(String[] args) {
+        RobinHoodHashTable t = new RobinHoodHashTable(20);
+        t.insert("ATU Letterkenny", "ATU Letterkenny");
+        t.insert("ATU Killybegs", "ATU Killybegs");
+        t.insert("ATU Sligo", "ATU Sligo");
+        t.insert("ATU Galway Mayo", "ATU Galway Mayo");
+        t.insert("ATU Killybegs", "ATU Killybegs"); // update/duplicate
+        for (int i = 1; i <= 15; i++) t.insert("UNI " + i, "UNI " + i);
+
+        t.printTable();
+        System.out.println("Is 'ATU Sligo' in the table? " + t.contains("ATU Sligo"));
+        System.out.println("Is 'ATU Dundalk' in the table? " + t.contains("ATU Dundalk"));
+
+        t.delete("ATU Galway Mayo");
+        t.printTable();
+
+        // Probe lengths right up against the 0.9 load factor
+        RobinHoodHashTable big = new RobinHoodHashTable(1 << 20);
+        Random rnd = new Random(7);
+        int n = (int) ((1 << 20) * 0.9) - 1;
+        for (int i = 0; i < n; i++) {
+            String k = Long.toString(rnd.nextLong(), 36);
+            big.insert(k, k);
+        }
+        System.out.printf("load %.2f  average probe %.2f  max probe %d%n",
+            big.loadFactor(), big.averageProbeDistance(), big.maxProbeDistance());
+    }
+}